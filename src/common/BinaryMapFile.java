@@ -0,0 +1,199 @@
+package common;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import enums.RoverName;
+import enums.Science;
+
+/**
+ * Compact binary map file, read through a memory mapped FileChannel.
+ *
+ * Layout (big endian):
+ *   header   magic "RMAP", version, width, height, start x/y, target x/y,
+ *            map name length and the map name in UTF-8
+ *   terrain  width * height shorts, the PlanetMap packed cells (terrain | elevation << 3)
+ *   science  width * height bytes, Science ordinal + 1 (0 for a square with no entry, so an
+ *            explicit NONE entry from a text map is kept)
+ *   rovers   width * height bytes, RoverName ordinal + 1 (0 for an empty square)
+ * Every plane is in row-major order (index = y * width + x) like the PlanetMap store.
+ *
+ * Nothing is read until it is asked for - open() only reads the header, the terrain plane is
+ * copied into the PlanetMap store in one bulk get, and the science and rover planes are
+ * only touched by the loaders that need them.
+ */
+public class BinaryMapFile {
+	public static final String EXTENSION = ".rmap";
+	public static final int MAGIC = 0x524D4150; // "RMAP"
+	// 2 - science stored as ordinal + 1 like the rovers, version 1 dropped NONE entries
+	public static final int VERSION = 2;
+	// fixed part of the header, the map name follows it
+	private static final int HEADER_SIZE = 34;
+
+	// cached because Enum.values() makes a new array on every call
+	private static final Science[] SCIENCE_VALUES = Science.values();
+	private static final RoverName[] ROVER_VALUES = RoverName.values();
+
+	private final MappedByteBuffer buffer;
+	private final String mapName;
+	private final int width;
+	private final int height;
+	private final Coord startPos;
+	private final Coord targetPos;
+	private final int terrainOffset;
+	private final int scienceOffset;
+	private final int roverOffset;
+
+	private BinaryMapFile(MappedByteBuffer buffer, String fileName) throws IOException {
+		this.buffer = buffer;
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException(fileName + " is not a binary map file");
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IOException(fileName + " is binary map version " + buffer.getInt(4) + ", expected " + VERSION);
+		}
+		this.width = buffer.getInt(8);
+		this.height = buffer.getInt(12);
+		this.startPos = new Coord(buffer.getInt(16), buffer.getInt(20));
+		this.targetPos = new Coord(buffer.getInt(24), buffer.getInt(28));
+		int nameLength = buffer.getShort(32) & 0xffff;
+		byte[] name = new byte[nameLength];
+		ByteBuffer nameView = buffer.duplicate();
+		nameView.position(HEADER_SIZE);
+		nameView.get(name);
+		this.mapName = new String(name, StandardCharsets.UTF_8);
+
+		int cells = width * height;
+		this.terrainOffset = HEADER_SIZE + nameLength;
+		this.scienceOffset = terrainOffset + cells * 2;
+		this.roverOffset = scienceOffset + cells;
+		if (buffer.capacity() < roverOffset + cells) {
+			throw new IOException(fileName + " is truncated");
+		}
+	}
+
+	/**
+	 * Maps the file and reads its header.
+	 */
+	public static BinaryMapFile open(String fileName) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(fileName, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			// the mapping stays valid after the channel is closed
+			return new BinaryMapFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), fileName);
+		} finally {
+			file.close();
+		}
+	}
+
+	public String getMapName() {
+		return mapName;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public Coord getStartPosition() {
+		return startPos;
+	}
+
+	public Coord getTargetPosition() {
+		return targetPos;
+	}
+
+	// bulk copy of the terrain plane into a PlanetMap store of width * height cells
+	void readTerrain(short[] cells) {
+		ByteBuffer terrain = buffer.duplicate();
+		terrain.position(terrainOffset);
+		terrain.asShortBuffer().get(cells, 0, width * height);
+	}
+
+	public PlanetMap readPlanetMap() {
+		return new PlanetMap(this);
+	}
+
+	public ScienceLocations readScienceLocations() {
+		ScienceLocations scienceLocations = new ScienceLocations();
+		for (int i = 0; i < width * height; i++) {
+			int sci = buffer.get(scienceOffset + i) & 0xff;
+			if (sci != 0) {
+				scienceLocations.putScience(new Coord(i % width, i / width), SCIENCE_VALUES[sci - 1]);
+			}
+		}
+		return scienceLocations;
+	}
+
+	public RoverLocations readRoverLocations() {
+		RoverLocations roverLocations = new RoverLocations();
+		for (int i = 0; i < width * height; i++) {
+			int rover = buffer.get(roverOffset + i) & 0xff;
+			if (rover != 0) {
+				roverLocations.putRover(ROVER_VALUES[rover - 1], new Coord(i % width, i / width));
+			}
+		}
+		return roverLocations;
+	}
+
+	/**
+	 * Writes a map in the binary format.
+	 */
+	public static void write(String fileName, String mapName, PlanetMap planetMap, RoverLocations roverLocations,
+			ScienceLocations scienceLocations) throws IOException {
+		int width = planetMap.getWidth();
+		int height = planetMap.getHeight();
+		int cells = width * height;
+		byte[] name = (mapName == null ? "" : mapName).getBytes(StandardCharsets.UTF_8);
+		// the science and rover planes are left as allocated, all zero, where there is no entry
+		ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + name.length + cells * 4);
+
+		out.putInt(MAGIC);
+		out.putInt(VERSION);
+		out.putInt(width);
+		out.putInt(height);
+		out.putInt(planetMap.getStartPosition().xpos);
+		out.putInt(planetMap.getStartPosition().ypos);
+		out.putInt(planetMap.getTargetPosition().xpos);
+		out.putInt(planetMap.getTargetPosition().ypos);
+		out.putShort((short) name.length);
+		out.put(name);
+
+		ShortBuffer terrain = planetMap.getCellView();
+		out.asShortBuffer().put(terrain);
+		out.position(out.position() + cells * 2);
+
+		int scienceOffset = out.position();
+		for (Map.Entry<Coord, Science> entry : scienceLocations.getHashMapClone().entrySet()) {
+			Coord loc = entry.getKey();
+			out.put(scienceOffset + loc.ypos * width + loc.xpos, (byte) (entry.getValue().ordinal() + 1));
+		}
+
+		int roverOffset = scienceOffset + cells;
+		for (Map.Entry<RoverName, Coord> entry : roverLocations.getHashMapClone().entrySet()) {
+			Coord loc = entry.getValue();
+			out.put(roverOffset + loc.ypos * width + loc.xpos, (byte) (entry.getKey().ordinal() + 1));
+		}
+
+		FileOutputStream file = new FileOutputStream(fileName);
+		try {
+			ByteBuffer bytes = ByteBuffer.wrap(out.array());
+			FileChannel channel = file.getChannel();
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+		} finally {
+			file.close();
+		}
+	}
+}
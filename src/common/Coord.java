@@ -1,7 +1,6 @@
 package common;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
 
 public class Coord {
 	// thanks to this posting http://stackoverflow.com/questions/27581/what-issues-should-be-considered-when-overriding-equals-and-hashcode-in-java
@@ -21,11 +20,9 @@ public class Coord {
 	
     @Override
     public int hashCode() {
-        return new HashCodeBuilder(17, 31). // two randomly chosen prime numbers
-            // if deriving: appendSuper(super.hashCode()).
-            append(xpos).
-            append(ypos).
-            toHashCode();
+        // same value as new HashCodeBuilder(17, 31).append(xpos).append(ypos).toHashCode()
+        // without building a HashCodeBuilder on every hash lookup
+        return (17 * 31 + xpos) * 31 + ypos;
     }
 
     @Override
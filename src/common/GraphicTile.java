@@ -153,6 +153,14 @@ public class GraphicTile {
 	
 
 
+	public int getX() {
+		return x;
+	}
+
+	public int getY() {
+		return y;
+	}
+
 	public void setRoverName(String roverName) {
 		this.roverName = roverName;
 		this.hasRover = true;
@@ -1,7 +1,17 @@
 package common;
 
+import java.io.IOException;
+import java.nio.ShortBuffer;
+import java.util.EnumSet;
+
+import enums.Science;
+import enums.Terrain;
+
 public class PlanetMap {
-	private MapTile[][] planetMap;
+	// Compact backing store - one short per map square in row-major order (index = y * width + x)
+	// bits 0-2 hold the Terrain ordinal, the rest hold the elevation
+	// a 1000x1000 map is 2MB here instead of a million MapTile objects
+	private short[] planetMap;
 	// width is number of columns is xloc, height is number of rows is yloc
 	private int mapWidth;
 	private int mapHeight;
@@ -9,7 +19,12 @@ public class PlanetMap {
 	private Coord targetPosCoord;
 	public static final int START_LOCATION_SIZE = 7;
 	public static final int TARGET_LOCATION_SIZE = 7;
-	
+
+	private static final int TERRAIN_BITS = 3;
+	private static final int TERRAIN_MASK = 0x07;
+	// cached because Enum.values() makes a new array on every call
+	private static final Terrain[] TERRAIN_VALUES = Terrain.values();
+
 	public PlanetMap(){
 		this.mapHeight = 0;
 		this.mapWidth = 0;
@@ -17,38 +32,38 @@ public class PlanetMap {
 		this.startPosCoord = null;
 		this.targetPosCoord = null;
 	}
-	
-	
+
+
 	public PlanetMap(int width, int height){
 		this.mapHeight = height;
 		this.mapWidth = width;
-		this.planetMap = new MapTile[width][height];
-		for(int j=0;j<height;j++){
-			for(int i=0;i<width;i++){
-				this.planetMap[i][j] = new MapTile();
-			}
-		}
+		this.planetMap = newSoilMap(width, height);
 		this.startPosCoord = new Coord(0, 0);
 		this.targetPosCoord = new Coord(0, 0);
 	}
-	
+
 	public PlanetMap(int width, int height, Coord startPos, Coord targetPos){
 		this.mapHeight = height;
 		this.mapWidth = width;
-		this.planetMap = new MapTile[width][height];
-		for(int j=0;j<height;j++){
-			for(int i=0;i<width;i++){
-				this.planetMap[i][j] = new MapTile();
-			}
-		}
+		this.planetMap = newSoilMap(width, height);
 		this.startPosCoord = startPos;
 		this.targetPosCoord = targetPos;
 	}
-	
-	public PlanetMap(String filename){
-		// TODO add ability to instantiate from JSON or binary file
+
+	// loads the terrain from a BinaryMapFile (.rmap), see supportTools.MapFileConverter for making one
+	public PlanetMap(String filename) throws IOException{
+		this(BinaryMapFile.open(filename));
 	}
-	
+
+	PlanetMap(BinaryMapFile mapFile){
+		this.mapHeight = mapFile.getHeight();
+		this.mapWidth = mapFile.getWidth();
+		this.planetMap = new short[mapWidth * mapHeight];
+		mapFile.readTerrain(this.planetMap);
+		this.startPosCoord = mapFile.getStartPosition();
+		this.targetPosCoord = mapFile.getTargetPosition();
+	}
+
 	public PlanetMap(PlanetMap planetMapIn) {
 		this.planetMap = planetMapIn.planetMap.clone();
 		this.mapWidth = planetMapIn.mapWidth;
@@ -57,133 +72,205 @@ public class PlanetMap {
 		this.targetPosCoord = planetMapIn.targetPosCoord;
 	}
 
+	private static short[] newSoilMap(int width, int height){
+		short[] cells = new short[width * height];
+		java.util.Arrays.fill(cells, packCell(Terrain.SOIL, 0));
+		return cells;
+	}
+
+	// *** packed cell encoding ***
+
+	public static short packCell(Terrain ter, int elevation){
+		return (short) ((elevation << TERRAIN_BITS) | ter.ordinal());
+	}
+
+	public static Terrain terrainOf(short cell){
+		return TERRAIN_VALUES[cell & TERRAIN_MASK];
+	}
+
+	public static int elevationOf(short cell){
+		return cell >> TERRAIN_BITS;
+	}
+
+	// only terrain and elevation are kept, science and rovers live in their own location classes
 	public void setTile(MapTile tile, int xloc, int yloc){
-		this.planetMap[xloc][yloc] = tile;
+		this.planetMap[yloc * mapWidth + xloc] = packCell(tile.getTerrain(), tile.getElevation());
 	}
-	
+
+	public void setTerrain(Terrain ter, int xloc, int yloc){
+		this.planetMap[yloc * mapWidth + xloc] = packCell(ter, 0);
+	}
+
+	// returns a new MapTile built from the packed cell - changing it does not change the map
 	public MapTile getTile(Coord coord){
-		return this.planetMap[coord.xpos][coord.ypos];
+		return getTile(coord.xpos, coord.ypos);
 	}
-	
+
 	public MapTile getTile(int xloc, int yloc){
-		return this.planetMap[xloc][yloc];
+		short cell = this.planetMap[yloc * mapWidth + xloc];
+		return new MapTile(terrainOf(cell), elevationOf(cell));
 	}
-	
+
+	// allocation free accessors for the hot paths
+	public Terrain terrainAt(int xloc, int yloc){
+		return TERRAIN_VALUES[this.planetMap[yloc * mapWidth + xloc] & TERRAIN_MASK];
+	}
+
+	public Terrain terrainAt(Coord coord){
+		return terrainAt(coord.xpos, coord.ypos);
+	}
+
+	public int elevationAt(int xloc, int yloc){
+		return elevationOf(this.planetMap[yloc * mapWidth + xloc]);
+	}
+
+	// Immutable view of the packed cells in row-major order, decode with terrainOf / elevationOf
+	public ShortBuffer getCellView(){
+		return ShortBuffer.wrap(this.planetMap).asReadOnlyBuffer();
+	}
+
 	// Generates and returns a local scanMap to the rover; assumes edge size is an odd number
 	public ScanMap getScanMap(Coord coord, int edgeSize, RoverLocations rloc, ScienceLocations sciloc){
+		return getScanMap(coord, edgeSize, rloc, sciloc, EnumSet.allOf(Science.class));
+	}
+
+	// As above but only science of the visibleScience types shows up in the scan
+	public ScanMap getScanMap(Coord coord, int edgeSize, RoverLocations rloc, ScienceLocations sciloc, EnumSet<Science> visibleScience){
 		int startx = coord.xpos - (edgeSize -1)/2;
 		int starty = coord.ypos - (edgeSize -1)/2;
 		MapTile aTile;
 		MapTile[][] tMap = new MapTile[edgeSize][edgeSize];
-		
+		Science[] sciWindow = new Science[edgeSize * edgeSize];
+		sciloc.scanWindow(startx, starty, edgeSize, visibleScience, sciWindow);
+		boolean[] roverWindow = new boolean[edgeSize * edgeSize];
+		rloc.scanWindow(startx, starty, edgeSize, roverWindow);
+
 		for(int j= 0; j< edgeSize; j++){
 			for(int i= 0; i< edgeSize; i++){
 				// Checks if location value is off the edge of the planetMap
 				if((i + startx) < 0 || (i + startx) >= mapWidth || (j + starty) < 0 || (j + starty) >= mapHeight){
 					aTile = new MapTile(0); // makes a MapTile with terrain = NONE
-				} else {					
-					// It is important to instantiate a new map tile to prevent
-					// passing the tile by reference and corrupting the original planetMap
-					aTile = planetMap[i + startx][j + starty].getCopyOfMapTile();
+				} else {
+					// getTile builds a new map tile so the original planetMap can not be corrupted
+					aTile = getTile(i + startx, j + starty);
 				}
-				Coord tempCoord = new Coord(i + startx, j + starty);
-				
+
 				// check and add rover to tile
-				if(rloc.containsCoord(tempCoord)){
+				if(roverWindow[j * edgeSize + i]){
 					aTile.setHasRoverTrue();
 				}
-				
+
 				// check and add Science if on map
-				if(sciloc.checkLocation(tempCoord)){
-					aTile.setSciecne(sciloc.scanLocation(tempCoord));
+				if(sciWindow[j * edgeSize + i] != null){
+					aTile.setSciecne(sciWindow[j * edgeSize + i]);
 				}
 				tMap[i][j] = aTile;
-			}	
+			}
 		}
 		return new ScanMap(tMap, edgeSize, coord);
 	}
-	
+
+	// Same scan window as getScanMap but packed straight into the ScanMapCodec byte form,
+	// no MapTile copies are made so this is the cheap path for the binary SCAN responses
+	public byte[] packScanMap(Coord coord, int edgeSize, RoverLocations rloc, ScienceLocations sciloc){
+		return packScanMap(coord, edgeSize, rloc, sciloc, EnumSet.allOf(Science.class));
+	}
+
+	public byte[] packScanMap(Coord coord, int edgeSize, RoverLocations rloc, ScienceLocations sciloc, EnumSet<Science> visibleScience){
+		int startx = coord.xpos - (edgeSize -1)/2;
+		int starty = coord.ypos - (edgeSize -1)/2;
+		byte[] packed = new byte[ScanMapCodec.HEADER_SIZE + edgeSize * edgeSize];
+		ScanMapCodec.writeHeader(packed, edgeSize, coord.xpos, coord.ypos);
+		Science[] sciWindow = new Science[edgeSize * edgeSize];
+		sciloc.scanWindow(startx, starty, edgeSize, visibleScience, sciWindow);
+		boolean[] roverWindow = new boolean[edgeSize * edgeSize];
+		rloc.scanWindow(startx, starty, edgeSize, roverWindow);
+		int k = ScanMapCodec.HEADER_SIZE;
+
+		for(int j= 0; j< edgeSize; j++){
+			for(int i= 0; i< edgeSize; i++){
+				Terrain ter = Terrain.NONE;
+				if(!((i + startx) < 0 || (i + startx) >= mapWidth || (j + starty) < 0 || (j + starty) >= mapHeight)){
+					ter = terrainAt(i + startx, j + starty);
+				}
+				Science sci = sciWindow[j * edgeSize + i];
+				packed[k++] = ScanMapCodec.packTile(ter, sci == null ? Science.NONE : sci, roverWindow[j * edgeSize + i]);
+			}
+		}
+		return packed;
+	}
+
 	public int getWidth(){
 		return this.mapWidth;
 	}
-	
+
 	public int getHeight(){
 		return this.mapHeight;
 	}
-	
+
 	public Coord getStartPosition(){
 		return this.startPosCoord;
 	}
-	
+
 	public Coord getTargetPosition(){
 		return this.targetPosCoord;
 	}
-	
-	
+
+
 	/*
 	 * These are only used for testing and development
 	 */
 	public void loadExampleTestPlanetMapTerrain(){
 		// temporary use for creating planet terrain for testing
-		
+
 		this.mapHeight = 40;
 		this.mapWidth = 40;
-		this.planetMap = new MapTile[mapWidth][mapHeight];
-		for(int j=0;j<mapHeight;j++){
-			for(int i=0;i<mapWidth;i++){
-				this.planetMap[i][j] = new MapTile();
-			}
-		}
-		
-		this.planetMap[7][7] = new MapTile("R"); 
-		this.planetMap[7][8] = new MapTile("R"); 
-		this.planetMap[8][7] = new MapTile("R"); 
-		this.planetMap[8][8] = new MapTile("R");
-		
-		this.planetMap[15][16] = new MapTile("R"); 
-		this.planetMap[15][17] = new MapTile("R"); 
-		this.planetMap[15][18] = new MapTile("R"); 
-		this.planetMap[15][19] = new MapTile("R"); 
-		this.planetMap[14][18] = new MapTile("R"); 
-		this.planetMap[14][19] = new MapTile("R"); 
-		this.planetMap[14][20] = new MapTile("R"); 
-		this.planetMap[14][21] = new MapTile("R"); 
-		
-		this.planetMap[6][23] = new MapTile("R");
-		this.planetMap[7][23] = new MapTile("R");
-		this.planetMap[7][23] = new MapTile("R");
-		this.planetMap[8][24] = new MapTile("R");
-		this.planetMap[8][25] = new MapTile("R");
-		
-		this.planetMap[24][10] = new MapTile("S");
-		this.planetMap[24][11] = new MapTile("S");
-		this.planetMap[24][12] = new MapTile("S");
-		this.planetMap[25][10] = new MapTile("S");
-		this.planetMap[25][11] = new MapTile("S");
-		this.planetMap[25][12] = new MapTile("S");
-		this.planetMap[25][13] = new MapTile("S");
-		this.planetMap[26][10] = new MapTile("S");
-		this.planetMap[26][11] = new MapTile("S");
-		this.planetMap[26][12] = new MapTile("S");
-		this.planetMap[26][13] = new MapTile("S");
-	}
-	
+		this.planetMap = newSoilMap(mapWidth, mapHeight);
+
+		setTerrain(Terrain.ROCK, 7, 7);
+		setTerrain(Terrain.ROCK, 7, 8);
+		setTerrain(Terrain.ROCK, 8, 7);
+		setTerrain(Terrain.ROCK, 8, 8);
+
+		setTerrain(Terrain.ROCK, 15, 16);
+		setTerrain(Terrain.ROCK, 15, 17);
+		setTerrain(Terrain.ROCK, 15, 18);
+		setTerrain(Terrain.ROCK, 15, 19);
+		setTerrain(Terrain.ROCK, 14, 18);
+		setTerrain(Terrain.ROCK, 14, 19);
+		setTerrain(Terrain.ROCK, 14, 20);
+		setTerrain(Terrain.ROCK, 14, 21);
+
+		setTerrain(Terrain.ROCK, 6, 23);
+		setTerrain(Terrain.ROCK, 7, 23);
+		setTerrain(Terrain.ROCK, 7, 23);
+		setTerrain(Terrain.ROCK, 8, 24);
+		setTerrain(Terrain.ROCK, 8, 25);
+
+		setTerrain(Terrain.SAND, 24, 10);
+		setTerrain(Terrain.SAND, 24, 11);
+		setTerrain(Terrain.SAND, 24, 12);
+		setTerrain(Terrain.SAND, 25, 10);
+		setTerrain(Terrain.SAND, 25, 11);
+		setTerrain(Terrain.SAND, 25, 12);
+		setTerrain(Terrain.SAND, 25, 13);
+		setTerrain(Terrain.SAND, 26, 10);
+		setTerrain(Terrain.SAND, 26, 11);
+		setTerrain(Terrain.SAND, 26, 12);
+		setTerrain(Terrain.SAND, 26, 13);
+	}
+
 	public void loadSmallExampleTestPlanetMapTerrain(){
 		// temporary use for creating planet terrain for testing
-		
+
 		this.mapHeight = 5;
 		this.mapWidth = 5;
-		this.planetMap = new MapTile[mapWidth][mapHeight];
-		for(int j=0;j<mapHeight;j++){
-			for(int i=0;i<mapWidth;i++){
-				this.planetMap[i][j] = new MapTile();
-			}
-		}
-		
-		this.planetMap[2][2] = new MapTile("R"); 
-		this.planetMap[3][2] = new MapTile("R"); 
-		this.planetMap[1][4] = new MapTile("R"); 
-	
-		this.planetMap[3][3] = new MapTile("S");
+		this.planetMap = newSoilMap(mapWidth, mapHeight);
+
+		setTerrain(Terrain.ROCK, 2, 2);
+		setTerrain(Terrain.ROCK, 3, 2);
+		setTerrain(Terrain.ROCK, 1, 4);
+
+		setTerrain(Terrain.SAND, 3, 3);
 	}
 }
@@ -14,8 +14,6 @@ public class Rover {
 	private RoverToolType tool_2;
 	private long lastMoveTime;
 	private long lastGatherTime;
-	private long lastRequestTime;
-	private int requestCount;
 	
 	// public for the arrayList just because it is easier to deal with than getters/setters
     public ArrayList<Science> scienceCargo;
@@ -49,11 +47,8 @@ public class Rover {
 		this.tool_2 = ttype2;
 		System.out.println("ROVER: this.tool_2 " + ttype2);
 		
-		requestCount = 0;
-		
 		//stores the current timestamp
 		this.lastMoveTime = System.currentTimeMillis();
-		this.lastRequestTime = System.currentTimeMillis();
 	}
 	
 	public RoverName getRoverName(){
@@ -78,6 +73,10 @@ public class Rover {
 	public void updateGatherTime(){
 		this.lastGatherTime = System.currentTimeMillis();
 	}
+	// for a server running on its own mission clock
+	public void updateGatherTime(long time){
+		this.lastGatherTime = time;
+	}
 	
 	public long getRoverLastMoveTime(){
 		return this.lastMoveTime;
@@ -85,15 +84,9 @@ public class Rover {
 	public void updateMoveTime(){
 		this.lastMoveTime = System.currentTimeMillis();
 	}
-	
-	public long getRoverRequestCount(){
-		if((System.currentTimeMillis() - lastRequestTime) < 1000){
-			++requestCount;
-		} else {
-			lastRequestTime = System.currentTimeMillis();
-			requestCount = 0;
-		}	
-		return this.requestCount;
+	public void updateMoveTime(long time){
+		this.lastMoveTime = time;
 	}
+	
 
 }
@@ -1,48 +1,96 @@
 package common;
 
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import enums.RoverName;
 import enums.Science;
 
 public class RoverLocations {
 	
-	private HashMap<RoverName, Coord> roverHash;
+	private ConcurrentHashMap<RoverName, Coord> roverHash;
+	// Occupancy index - which rover is on each square. A move first reserves its target square
+	// here with putIfAbsent, so only one rover can ever claim a square and moves to different
+	// squares never wait on each other. transient so json copies only carry roverHash,
+	// it gets rebuilt from roverHash after deserialization.
+	private transient volatile ConcurrentHashMap<Coord, RoverName> coordHash;
 
 	public RoverLocations(){
-		roverHash = new HashMap<RoverName, Coord>();
+		roverHash = new ConcurrentHashMap<RoverName, Coord>();
+		// left null - Gson runs this constructor and then fills only roverHash, so the index is
+		// built from roverHash on first use
 	}
 	
-	public RoverLocations(HashMap<RoverName, Coord> rovHash){
-		roverHash = (HashMap<RoverName, Coord>) rovHash.clone();
+	public RoverLocations(Map<RoverName, Coord> rovHash){
+		roverHash = new ConcurrentHashMap<RoverName, Coord>(rovHash);
+		coordHash = buildCoordIndex();
 	}
 	
-
+	private ConcurrentHashMap<Coord, RoverName> buildCoordIndex(){
+		ConcurrentHashMap<Coord, RoverName> index = new ConcurrentHashMap<Coord, RoverName>();
+		for (Entry<RoverName, Coord> entry : roverHash.entrySet()) {
+			index.put(entry.getValue(), entry.getKey());
+		}
+		return index;
+	}
+	
+	private ConcurrentHashMap<Coord, RoverName> coordIndex(){
+		ConcurrentHashMap<Coord, RoverName> index = coordHash;
+		if(index == null){
+			synchronized(this){
+				if(coordHash == null){
+					coordHash = buildCoordIndex();
+				}
+				index = coordHash;
+			}
+		}
+		return index;
+	}
 	
-	public synchronized boolean moveRover(RoverName rname, Coord loc){
-		if(roverHash.containsValue(loc)){
+	public boolean moveRover(RoverName rname, Coord loc){
+		ConcurrentHashMap<Coord, RoverName> index = coordIndex();
+		// reserve the target square, fails if any rover (including this one) is already on it
+		if(index.putIfAbsent(loc, rname) != null){
 			return false;
-		}			
-		roverHash.put(rname,  loc);			
+		}
+		Coord oldLoc = roverHash.put(rname, loc);
+		// release the square being left - only if this rover still holds it
+		if(oldLoc != null){
+			index.remove(oldLoc, rname);
+		}
 		return true;
 	}
 	
-	public synchronized Coord getLocation(RoverName rname){
+	public Coord getLocation(RoverName rname){
 		return roverHash.get(rname);
 	}
 	
-	public synchronized RoverName getName(Coord loc){
-		for (Entry<RoverName, Coord> entry : roverHash.entrySet()) {
-            if (entry.getValue().equals(loc)) {
-                return entry.getKey();
-            }
-        }	
-		return null;
+	public RoverName getName(Coord loc){
+		return coordIndex().get(loc);
+	}
+	
+	public boolean containsCoord (Coord loc){
+		return coordIndex().containsKey(loc);
 	}
 	
-	public synchronized boolean containsCoord (Coord loc){
-		return roverHash.containsValue(loc);
+	/**
+	 * Marks window (row-major, index = j * edgeSize + i) true for every square of the edgeSize
+	 * square whose top left corner is startx, starty that has a rover on it. One pass over the
+	 * rovers instead of a Coord and a lookup per square. Returns the number of rovers found.
+	 */
+	public int scanWindow(int startx, int starty, int edgeSize, boolean[] window){
+		int found = 0;
+		for (Coord loc : roverHash.values()) {
+			int i = loc.xpos - startx;
+			int j = loc.ypos - starty;
+			if (i >= 0 && i < edgeSize && j >= 0 && j < edgeSize) {
+				window[j * edgeSize + i] = true;
+				found++;
+			}
+		}
+		return found;
 	}
 	
 	public void printRovers(){
@@ -53,12 +101,18 @@ public class RoverLocations {
     	}
 	}
 	
-	public synchronized HashMap<RoverName, Coord> getHashMapClone(){	
-		return (HashMap<RoverName, Coord>) roverHash.clone();
+	public HashMap<RoverName, Coord> getHashMapClone(){	
+		return new HashMap<RoverName, Coord>(roverHash);
 	}
 	
-	public synchronized void putRover(RoverName rname, Coord rloc){	
-		roverHash.put(rname, rloc);
+	// setup only - places the rover without the occupancy check that moveRover makes
+	public void putRover(RoverName rname, Coord rloc){	
+		ConcurrentHashMap<Coord, RoverName> index = coordIndex();
+		Coord oldLoc = roverHash.put(rname, rloc);
+		if(oldLoc != null){
+			index.remove(oldLoc, rname);
+		}
+		index.put(rloc, rname);
 	}
 	
 	public RoverLocations clone(){
@@ -74,36 +128,36 @@ public class RoverLocations {
 	public void loadExampleTestRoverLocations(){
         // place all the rovers into the map in their initial positions
         // TODO - have initial positions loaded from a file instead of hard coded
-		roverHash.put(RoverName.ROVER_01, new Coord(1,1));
-		roverHash.put(RoverName.ROVER_02, new Coord(2,1));
-		roverHash.put(RoverName.ROVER_03, new Coord(3,1));
-		roverHash.put(RoverName.ROVER_04, new Coord(4,1));
-		roverHash.put(RoverName.ROVER_05, new Coord(5,1));
-		roverHash.put(RoverName.ROVER_06, new Coord(6,1));
-		roverHash.put(RoverName.ROVER_07, new Coord(7,1));
-		roverHash.put(RoverName.ROVER_08, new Coord(8,1));
-		roverHash.put(RoverName.ROVER_09, new Coord(9,1));
-		roverHash.put(RoverName.ROVER_10, new Coord(10,1));
-		roverHash.put(RoverName.ROVER_11, new Coord(11,1));
-		roverHash.put(RoverName.ROVER_12, new Coord(12,1));
-		roverHash.put(RoverName.ROVER_13, new Coord(13,1));
-		roverHash.put(RoverName.ROVER_14, new Coord(14,1));
-		roverHash.put(RoverName.ROVER_15, new Coord(15,1));
-		roverHash.put(RoverName.ROVER_16, new Coord(16,1));
-		roverHash.put(RoverName.ROVER_17, new Coord(17,1));
-		roverHash.put(RoverName.ROVER_18, new Coord(18,1));
-		roverHash.put(RoverName.ROVER_19, new Coord(19,1));
-		roverHash.put(RoverName.ROVER_20, new Coord(20,1));
+		putRover(RoverName.ROVER_01, new Coord(1,1));
+		putRover(RoverName.ROVER_02, new Coord(2,1));
+		putRover(RoverName.ROVER_03, new Coord(3,1));
+		putRover(RoverName.ROVER_04, new Coord(4,1));
+		putRover(RoverName.ROVER_05, new Coord(5,1));
+		putRover(RoverName.ROVER_06, new Coord(6,1));
+		putRover(RoverName.ROVER_07, new Coord(7,1));
+		putRover(RoverName.ROVER_08, new Coord(8,1));
+		putRover(RoverName.ROVER_09, new Coord(9,1));
+		putRover(RoverName.ROVER_10, new Coord(10,1));
+		putRover(RoverName.ROVER_11, new Coord(11,1));
+		putRover(RoverName.ROVER_12, new Coord(12,1));
+		putRover(RoverName.ROVER_13, new Coord(13,1));
+		putRover(RoverName.ROVER_14, new Coord(14,1));
+		putRover(RoverName.ROVER_15, new Coord(15,1));
+		putRover(RoverName.ROVER_16, new Coord(16,1));
+		putRover(RoverName.ROVER_17, new Coord(17,1));
+		putRover(RoverName.ROVER_18, new Coord(18,1));
+		putRover(RoverName.ROVER_19, new Coord(19,1));
+		putRover(RoverName.ROVER_20, new Coord(20,1));
 		
 		// test rovers
-		roverHash.put(RoverName.ROVER_00, new Coord(4,20));
-		roverHash.put(RoverName.ROVER_99, new Coord(4,7));
+		putRover(RoverName.ROVER_00, new Coord(4,20));
+		putRover(RoverName.ROVER_99, new Coord(4,7));
 	}
 	
 	public void loadSmallExampleTestRoverLocations(){
 		
 		// test rovers
-		roverHash.put(RoverName.ROVER_00, new Coord(4,20));
-		roverHash.put(RoverName.ROVER_99, new Coord(4,7));
+		putRover(RoverName.ROVER_00, new Coord(4,20));
+		putRover(RoverName.ROVER_99, new Coord(4,7));
 	}
 }
@@ -0,0 +1,184 @@
+package common;
+
+import java.util.Base64;
+
+import enums.Science;
+import enums.Terrain;
+
+/**
+ * Packed binary form of a ScanMap for the opt-in binary SCAN protocol.
+ *
+ * Each tile is one byte:  bits 0-2 terrain ordinal, bits 3-5 science ordinal, bit 6 hasRover
+ * Header is 5 bytes:      edge size, center x (short), center y (short)
+ * Tiles follow row by row (y outer, x inner) so an 11x11 scan is 126 bytes instead of
+ * several kilobytes of json. On the line protocol it travels as a single Base64 line.
+ *
+ * SCAN_DELTA bodies use the same header followed by a 2 byte tile count and
+ * (x, y, tile) triples, see encodeDelta / applyDelta.
+ */
+public class ScanMapCodec {
+	public static final int HEADER_SIZE = 5;
+
+	private static final int TERRAIN_MASK = 0x07;
+	private static final int SCIENCE_SHIFT = 3;
+	private static final int SCIENCE_MASK = 0x07;
+	private static final int ROVER_BIT = 0x40;
+
+	// cached because Enum.values() makes a new array on every call
+	private static final Terrain[] TERRAIN_VALUES = Terrain.values();
+	private static final Science[] SCIENCE_VALUES = Science.values();
+
+	public static byte packTile(Terrain ter, Science sci, boolean hasRover) {
+		int packed = ter.ordinal() | (sci.ordinal() << SCIENCE_SHIFT);
+		if (hasRover) {
+			packed |= ROVER_BIT;
+		}
+		return (byte) packed;
+	}
+
+	public static byte packTile(MapTile tile) {
+		return packTile(tile.getTerrain(), tile.getScience(), tile.getHasRover());
+	}
+
+	public static Terrain unpackTerrain(byte packed) {
+		return TERRAIN_VALUES[packed & TERRAIN_MASK];
+	}
+
+	public static Science unpackScience(byte packed) {
+		return SCIENCE_VALUES[(packed >> SCIENCE_SHIFT) & SCIENCE_MASK];
+	}
+
+	public static boolean unpackHasRover(byte packed) {
+		return (packed & ROVER_BIT) != 0;
+	}
+
+	public static MapTile unpackTile(byte packed) {
+		return new MapTile(unpackTerrain(packed), unpackScience(packed), 0, unpackHasRover(packed));
+	}
+
+	public static byte[] encode(ScanMap scanMap) {
+		int edgeSize = scanMap.getEdgeSize();
+		MapTile[][] tiles = scanMap.getScanMap();
+		Coord center = scanMap.getCenterPoint();
+
+		byte[] out = new byte[HEADER_SIZE + edgeSize * edgeSize];
+		writeHeader(out, edgeSize, center.xpos, center.ypos);
+		int k = HEADER_SIZE;
+		for (int j = 0; j < edgeSize; j++) {
+			for (int i = 0; i < edgeSize; i++) {
+				out[k++] = packTile(tiles[i][j]);
+			}
+		}
+		return out;
+	}
+
+	public static ScanMap decode(byte[] in) {
+		int edgeSize = in[0] & 0xff;
+		Coord center = new Coord(readShort(in, 1), readShort(in, 3));
+
+		MapTile[][] tiles = new MapTile[edgeSize][edgeSize];
+		int k = HEADER_SIZE;
+		for (int j = 0; j < edgeSize; j++) {
+			for (int i = 0; i < edgeSize; i++) {
+				tiles[i][j] = unpackTile(in[k++]);
+			}
+		}
+		return new ScanMap(tiles, edgeSize, center);
+	}
+
+	/**
+	 * Builds a SCAN_DELTA body: the header of the current scan, a tile count, then
+	 * (x, y, tile) byte triples for every tile the client does not already have.
+	 * Tiles are compared by world position, so after a one tile move only the new edge
+	 * row or column plus tiles whose rover / science state changed are sent.
+	 */
+	public static byte[] encodeDelta(byte[] previous, byte[] current) {
+		int edgeSize = current[0] & 0xff;
+		int startx = readShort(current, 1) - (edgeSize - 1) / 2;
+		int starty = readShort(current, 3) - (edgeSize - 1) / 2;
+		int prevEdge = previous[0] & 0xff;
+		int prevStartx = readShort(previous, 1) - (prevEdge - 1) / 2;
+		int prevStarty = readShort(previous, 3) - (prevEdge - 1) / 2;
+
+		// worst case every tile changed
+		byte[] delta = new byte[HEADER_SIZE + 2 + edgeSize * edgeSize * 3];
+		System.arraycopy(current, 0, delta, 0, HEADER_SIZE);
+		int k = HEADER_SIZE + 2;
+		int count = 0;
+		for (int j = 0; j < edgeSize; j++) {
+			for (int i = 0; i < edgeSize; i++) {
+				byte tile = current[HEADER_SIZE + j * edgeSize + i];
+				int pi = i + startx - prevStartx;
+				int pj = j + starty - prevStarty;
+				if (pi >= 0 && pi < prevEdge && pj >= 0 && pj < prevEdge
+						&& previous[HEADER_SIZE + pj * prevEdge + pi] == tile) {
+					continue;
+				}
+				delta[k++] = (byte) i;
+				delta[k++] = (byte) j;
+				delta[k++] = tile;
+				count++;
+			}
+		}
+		delta[HEADER_SIZE] = (byte) (count >> 8);
+		delta[HEADER_SIZE + 1] = (byte) count;
+		byte[] trimmed = new byte[k];
+		System.arraycopy(delta, 0, trimmed, 0, k);
+		return trimmed;
+	}
+
+	/**
+	 * Client side of SCAN_DELTA - shifts the previous window to the new center, keeping the
+	 * tiles that are still in view, then overwrites the tiles listed in the delta.
+	 */
+	public static ScanMap applyDelta(ScanMap previous, byte[] delta) {
+		int edgeSize = delta[0] & 0xff;
+		Coord center = new Coord(readShort(delta, 1), readShort(delta, 3));
+		int startx = center.xpos - (edgeSize - 1) / 2;
+		int starty = center.ypos - (edgeSize - 1) / 2;
+		int prevEdge = previous.getEdgeSize();
+		int prevStartx = previous.getCenterPoint().xpos - (prevEdge - 1) / 2;
+		int prevStarty = previous.getCenterPoint().ypos - (prevEdge - 1) / 2;
+		MapTile[][] prevTiles = previous.getScanMap();
+
+		MapTile[][] tiles = new MapTile[edgeSize][edgeSize];
+		for (int j = 0; j < edgeSize; j++) {
+			for (int i = 0; i < edgeSize; i++) {
+				int pi = i + startx - prevStartx;
+				int pj = j + starty - prevStarty;
+				if (pi >= 0 && pi < prevEdge && pj >= 0 && pj < prevEdge) {
+					tiles[i][j] = prevTiles[pi][pj];
+				}
+			}
+		}
+
+		int count = ((delta[HEADER_SIZE] & 0xff) << 8) | (delta[HEADER_SIZE + 1] & 0xff);
+		int k = HEADER_SIZE + 2;
+		for (int n = 0; n < count; n++) {
+			int i = delta[k++] & 0xff;
+			int j = delta[k++] & 0xff;
+			tiles[i][j] = unpackTile(delta[k++]);
+		}
+		return new ScanMap(tiles, edgeSize, center);
+	}
+
+	public static String encodeToString(ScanMap scanMap) {
+		return Base64.getEncoder().encodeToString(encode(scanMap));
+	}
+
+	public static ScanMap decodeFromString(String line) {
+		return decode(Base64.getDecoder().decode(line.trim()));
+	}
+
+	static void writeHeader(byte[] out, int edgeSize, int centerX, int centerY) {
+		out[0] = (byte) edgeSize;
+		out[1] = (byte) (centerX >> 8);
+		out[2] = (byte) centerX;
+		out[3] = (byte) (centerY >> 8);
+		out[4] = (byte) centerY;
+	}
+
+	static int readShort(byte[] in, int offset) {
+		return (short) (((in[offset] & 0xff) << 8) | (in[offset + 1] & 0xff));
+	}
+}
@@ -1,5 +1,8 @@
 package common;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map.Entry;
 
@@ -10,6 +13,15 @@ public class ScienceLocations {
 	
 		// can only have one science at any single location
 		private HashMap<Coord, Science> scienceHash;
+		
+		// Spatial index of scienceHash - for each Science type the locations are bucketed into
+		// BUCKET_SIZE x BUCKET_SIZE squares keyed by bucket Coord, so a scan only visits the few
+		// buckets under its window and only for the types the rover sensors can see.
+		// transient so json copies only carry scienceHash, rebuilt when the two fall out of step
+		private static final int BUCKET_SHIFT = 3;
+		private static final int BUCKET_SIZE = 1 << BUCKET_SHIFT;
+		private transient EnumMap<Science, HashMap<Coord, ArrayList<Coord>>> buckets;
+		private transient int indexedCount;
 
 		public ScienceLocations(){
 			scienceHash = new HashMap<Coord, Science>();
@@ -42,12 +54,92 @@ public class ScienceLocations {
 			}
 		}
 		
+		/**
+		 * Fills window (row-major, index = j * edgeSize + i) with the science of the visible types
+		 * inside the edgeSize square whose top left corner is startx, starty. Squares with no visible
+		 * science are left untouched so the caller should pass in a cleared array.
+		 * Returns the number of science locations found.
+		 */
+		public synchronized int scanWindow(int startx, int starty, int edgeSize, EnumSet<Science> visible, Science[] window){
+			EnumMap<Science, HashMap<Coord, ArrayList<Coord>>> index = bucketIndex();
+			int endx = startx + edgeSize - 1;
+			int endy = starty + edgeSize - 1;
+			int found = 0;
+			for(Science sci : visible){
+				HashMap<Coord, ArrayList<Coord>> typeBuckets = index.get(sci);
+				if(typeBuckets == null){
+					continue;
+				}
+				for(int by = starty >> BUCKET_SHIFT; by <= endy >> BUCKET_SHIFT; by++){
+					for(int bx = startx >> BUCKET_SHIFT; bx <= endx >> BUCKET_SHIFT; bx++){
+						ArrayList<Coord> bucket = typeBuckets.get(new Coord(bx, by));
+						if(bucket == null){
+							continue;
+						}
+						for(Coord loc : bucket){
+							if(loc.xpos >= startx && loc.xpos <= endx && loc.ypos >= starty && loc.ypos <= endy){
+								window[(loc.ypos - starty) * edgeSize + (loc.xpos - startx)] = sci;
+								found++;
+							}
+						}
+					}
+				}
+			}
+			return found;
+		}
+		
+		private EnumMap<Science, HashMap<Coord, ArrayList<Coord>>> bucketIndex(){
+			if(buckets == null || indexedCount != scienceHash.size()){
+				buckets = new EnumMap<Science, HashMap<Coord, ArrayList<Coord>>>(Science.class);
+				indexedCount = 0;
+				for(Entry<Coord, Science> entry : scienceHash.entrySet()){
+					addToBucket(entry.getKey(), entry.getValue());
+				}
+			}
+			return buckets;
+		}
+		
+		private void addToBucket(Coord loc, Science sci){
+			HashMap<Coord, ArrayList<Coord>> typeBuckets = buckets.get(sci);
+			if(typeBuckets == null){
+				typeBuckets = new HashMap<Coord, ArrayList<Coord>>();
+				buckets.put(sci, typeBuckets);
+			}
+			Coord bucketKey = new Coord(loc.xpos >> BUCKET_SHIFT, loc.ypos >> BUCKET_SHIFT);
+			ArrayList<Coord> bucket = typeBuckets.get(bucketKey);
+			if(bucket == null){
+				bucket = new ArrayList<Coord>(BUCKET_SIZE);
+				typeBuckets.put(bucketKey, bucket);
+			}
+			bucket.add(loc);
+			indexedCount++;
+		}
+		
+		private void removeFromBucket(Coord loc, Science sci){
+			HashMap<Coord, ArrayList<Coord>> typeBuckets = buckets.get(sci);
+			if(typeBuckets == null){
+				return;
+			}
+			Coord bucketKey = new Coord(loc.xpos >> BUCKET_SHIFT, loc.ypos >> BUCKET_SHIFT);
+			ArrayList<Coord> bucket = typeBuckets.get(bucketKey);
+			if(bucket != null && bucket.remove(loc)){
+				indexedCount--;
+				if(bucket.isEmpty()){
+					typeBuckets.remove(bucketKey);
+				}
+			}
+		}
+		
 		private synchronized void putLocation(Coord loc, Science sci){
 			this.scienceHash.put(loc, sci);
 		}
 		
 		private synchronized void removeLocation(Coord loc){
-			this.scienceHash.remove(loc);
+			bucketIndex();
+			Science sci = this.scienceHash.remove(loc);
+			if(sci != null){
+				removeFromBucket(loc, sci);
+			}
 		}
 		
 		public synchronized HashMap<Coord, Science> getHashMapClone(){	
@@ -63,7 +155,12 @@ public class ScienceLocations {
 		}
 		
 		public synchronized void putScience(Coord sloc, Science sci){	
-			scienceHash.put(sloc, sci);
+			bucketIndex();
+			Science oldSci = scienceHash.put(sloc, sci);
+			if(oldSci != null){
+				removeFromBucket(sloc, oldSci);
+			}
+			addToBucket(sloc, sci);
 		}
 		
 		
@@ -74,19 +171,19 @@ public class ScienceLocations {
 		
 		public void loadExampleTestScienceLocations(){
 			// put some sample science in the world
-			scienceHash.put(new Coord(20,14), Science.RADIOACTIVE);
-			scienceHash.put(new Coord(21,20), Science.CRYSTAL);
-			scienceHash.put(new Coord(7,3), Science.MINERAL);
-			scienceHash.put(new Coord(9,15), Science.ORGANIC);
-			scienceHash.put(new Coord(17,12), Science.RADIOACTIVE);
-			scienceHash.put(new Coord(10,11), Science.CRYSTAL);
-			scienceHash.put(new Coord(19,3), Science.MINERAL);
-			scienceHash.put(new Coord(12,24), Science.ORGANIC);
+			putScience(new Coord(20,14), Science.RADIOACTIVE);
+			putScience(new Coord(21,20), Science.CRYSTAL);
+			putScience(new Coord(7,3), Science.MINERAL);
+			putScience(new Coord(9,15), Science.ORGANIC);
+			putScience(new Coord(17,12), Science.RADIOACTIVE);
+			putScience(new Coord(10,11), Science.CRYSTAL);
+			putScience(new Coord(19,3), Science.MINERAL);
+			putScience(new Coord(12,24), Science.ORGANIC);
 		}
 		
 		public void loadSmallExampleTestScienceLocations(){
 			// put some sample science in the world
-			scienceHash.put(new Coord(20,20), Science.RADIOACTIVE);
+			putScience(new Coord(20,20), Science.RADIOACTIVE);
 		}
 		
 }
@@ -0,0 +1,44 @@
+package controlServer;
+
+import java.util.ArrayList;
+
+import common.PlanetMap;
+import common.RoverLocations;
+import common.ScienceLocations;
+import enums.Science;
+
+/**
+ * Headless stand in for the map display - nothing is drawn, scores and the end of the
+ * mission are written to standard out. Never touches AWT or Swing.
+ */
+class ConsoleMissionObserver implements MissionObserver {
+	// "SwarmServer:" for the default mission, "SwarmServer[name]:" for the others
+	private final String prefix;
+
+	ConsoleMissionObserver() {
+		this.prefix = "SwarmServer:";
+	}
+
+	ConsoleMissionObserver(String missionName) {
+		this.prefix = "SwarmServer[" + missionName + "]:";
+	}
+
+	public void missionStarted(PlanetMap planetMap, RoverLocations roverLocations, ScienceLocations scienceLocations, long timeLimit, double timeScale) {
+		System.out.println(prefix + " headless, " + planetMap.getWidth() + "x" + planetMap.getHeight()
+				+ " map, time limit " + (timeLimit / 1000) + " s" + (timeScale != 1 ? " at " + timeScale + "x" : ""));
+	}
+
+	public void worldChanged() {
+		// nothing to redraw
+	}
+
+	public void scoreChanged(ArrayList<ArrayList<Science>> corpCollectedScience) {
+		System.out.println(prefix + " score BLUE " + corpCollectedScience.get(1).size()
+				+ " GREEN " + corpCollectedScience.get(2).size()
+				+ " SAMPLE " + corpCollectedScience.get(0).size());
+	}
+
+	public void timeUp() {
+		// the final score is the last line anyone watching the log needs
+	}
+}
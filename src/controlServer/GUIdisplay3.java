@@ -5,10 +5,15 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map.Entry;
 
 import javax.swing.BoxLayout;
 import javax.swing.JFrame;
@@ -16,6 +21,7 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 import javax.swing.Timer;
 
@@ -25,6 +31,7 @@ import common.LineSegment;
 import common.PlanetMap;
 import common.RoverLocations;
 import common.ScienceLocations;
+import enums.RoverName;
 import enums.Science;
 import enums.Terrain;
 
@@ -37,8 +44,11 @@ public class GUIdisplay3 extends JPanel implements MyGUIAppendable3 {
 	private int height;
 	private int pixelWidth;
 	private int pixelHeight;
-	private List<GraphicTile> graphicTiles;
-	private List<LineSegment> lineSegments;
+	// static terrain, grid lines and start/target outlines - drawn once when the map arrives
+	private BufferedImage terrainLayer;
+	// rovers and science on top of the terrain, one slot per map square (index = y * width + x)
+	// only touched on the event dispatch thread
+	private GraphicTile[] overlayTiles;
 	private JTextField countdownClock;
 	private JTextField countdownTitle;
 	private Timer timer;
@@ -52,13 +62,17 @@ public class GUIdisplay3 extends JPanel implements MyGUIAppendable3 {
 	}
 
 	public GUIdisplay3(int width, int height, long timeLimit) {
+		this(width, height, timeLimit, 1);
+	}
+
+	// the countdown runs timeScale times faster than real time
+	public GUIdisplay3(int width, int height, long timeLimit, double timeScale) {
 		this.width = width;
 		this.height = height;
 		this.pixelWidth = (this.width * TILE_SIZE);
 		this.pixelHeight = (this.height * TILE_SIZE);
-		graphicTiles = new ArrayList<>();
-		lineSegments = new ArrayList<>();
-		countDownClock(timeLimit);
+		overlayTiles = new GraphicTile[width * height];
+		countDownClock(timeLimit, timeScale);
 		displayScoreTextInit();
 	}
 
@@ -95,7 +109,7 @@ public class GUIdisplay3 extends JPanel implements MyGUIAppendable3 {
 	 * to-zero-by-swing-timer
 	 */
 
-	private void countDownClock(long timeLimit) {
+	private void countDownClock(long timeLimit, double timeScale) {
 		// Count down clock
 		countdownTitle = new JTextField();
 		countdownTitle.setFont(new Font("sansserif", Font.PLAIN, FONT_SIZE));
@@ -124,7 +138,7 @@ public class GUIdisplay3 extends JPanel implements MyGUIAppendable3 {
 					// countdownClock.setText(h + " h " + m + " m " + s + " s");
 					countdownTitle.setText("Time Remaining");
 					countdownClock.setText(m + " mins " + s + " s");
-					time -= 1000;
+					time -= Math.round(1000 * timeScale);
 				}
 			}
 		});
@@ -155,23 +169,10 @@ public class GUIdisplay3 extends JPanel implements MyGUIAppendable3 {
 	}
 
 	@Override
-	public void drawThisGraphicTileArray(ArrayList<GraphicTile> gtarraylist,
-			ArrayList<LineSegment> lineSegmentArrayList) {
-		this.graphicTiles = gtarraylist;
-		this.lineSegments = lineSegmentArrayList;
-		repaint();
-	}
-
-	/**
-	 * got the idea from:
-	 * http://stackoverflow.com/questions/15870608/creating-a-draw-rectangle-
-	 * filled-with-black-color-function-in-java-for-a-grid
-	 * 
-	 **/
-	@Override
-	protected void paintComponent(Graphics g) {
-		super.paintComponent(g);
-		for (GraphicTile graphicTile : graphicTiles) {
+	public void drawTerrainLayer(ArrayList<GraphicTile> terrainTiles, ArrayList<LineSegment> lineSegmentArrayList) {
+		BufferedImage layer = new BufferedImage(pixelWidth + TILE_SIZE + 1, pixelHeight + TILE_SIZE + 1, BufferedImage.TYPE_INT_ARGB);
+		Graphics g = layer.getGraphics();
+		for (GraphicTile graphicTile : terrainTiles) {
 			graphicTile.drawTile(g);
 		}
 		g.setColor(EXTRA_LIGHT_GREY);
@@ -184,11 +185,64 @@ public class GUIdisplay3 extends JPanel implements MyGUIAppendable3 {
 			g.drawLine(0, i, pixelWidth, i);
 		}
 		// draw the start and target location outlines
-		for (LineSegment lineSegment : lineSegments) {
+		for (LineSegment lineSegment : lineSegmentArrayList) {
 			g.setColor(lineSegment.lineColor);
 			g.drawLine(lineSegment.X1, lineSegment.Y1, lineSegment.X2, lineSegment.Y2);
 		}
+		g.dispose();
 
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				terrainLayer = layer;
+				repaint();
+			}
+		});
+	}
+
+	@Override
+	public void updateTiles(ArrayList<GraphicTile> changedTiles) {
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				for (GraphicTile graphicTile : changedTiles) {
+					int x = graphicTile.getX();
+					int y = graphicTile.getY();
+					overlayTiles[y * width + x] = graphicTile;
+					// only the pixels of this one square need painting again
+					repaint(x * TILE_SIZE, y * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+				}
+			}
+		});
+	}
+
+	/**
+	 * got the idea from:
+	 * http://stackoverflow.com/questions/15870608/creating-a-draw-rectangle-
+	 * filled-with-black-color-function-in-java-for-a-grid
+	 * 
+	 **/
+	@Override
+	protected void paintComponent(Graphics g) {
+		super.paintComponent(g);
+		if (terrainLayer != null) {
+			g.drawImage(terrainLayer, 0, 0, null);
+		}
+		// draw only the overlay squares inside the area being repainted
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) {
+			clip = new Rectangle(0, 0, pixelWidth, pixelHeight);
+		}
+		int firstX = Math.max(0, clip.x / TILE_SIZE);
+		int lastX = Math.min(width - 1, (clip.x + clip.width) / TILE_SIZE);
+		int firstY = Math.max(0, clip.y / TILE_SIZE);
+		int lastY = Math.min(height - 1, (clip.y + clip.height) / TILE_SIZE);
+		for (int y = firstY; y <= lastY; y++) {
+			for (int x = firstX; x <= lastX; x++) {
+				GraphicTile graphicTile = overlayTiles[y * width + x];
+				if (graphicTile != null) {
+					graphicTile.drawTile(g);
+				}
+			}
+		}
 	}
 
 	// Set the size of the map display
@@ -245,6 +299,10 @@ class MyGUIWorker3 extends SwingWorker<Void, String> {
 	private String msg;
 	private RoverLocations roverLoc;
 	private ScienceLocations sciloc;
+	// what the display is currently showing, only used from the render thread
+	private PlanetMap drawnMap;
+	private HashMap<Coord, RoverName> lastRovers = new HashMap<Coord, RoverName>();
+	private HashMap<Coord, Science> lastScience = new HashMap<Coord, Science>();
 
 	public MyGUIWorker3(MyGUIAppendable3 myAppendable) {
 		this.myAppendable = myAppendable;
@@ -270,36 +328,85 @@ class MyGUIWorker3 extends SwingWorker<Void, String> {
 		myAppendable.clearDisplay();
 	}
 
+	/**
+	 * Sends the display only what changed since the last call. The terrain never changes, so it
+	 * is handed over once per map and the display renders it into a cached image. After that the
+	 * rover and science positions are compared with the previous call and only the squares that
+	 * differ are sent, so a frame costs O(rovers + science) instead of O(map squares).
+	 */
 	public void displayGraphicMap(RoverLocations roverLoc, ScienceLocations sciloc, PlanetMap planetMap) {
-		int mWidth = planetMap.getWidth();
-		int mHeight = planetMap.getHeight();
-
-		ArrayList<GraphicTile> graphicTiles = new ArrayList<GraphicTile>();
-
-		// make the graphic tiles and place in array
-		for (int j = 0; j < mHeight; j++) {
-			for (int i = 0; i < mWidth; i++) {
-				// scan through the map - left to right, top to bottom
-				Coord tcor = new Coord(i, j);
-				GraphicTile gtile = new GraphicTile(tcor.xpos, tcor.ypos);
-				// first check for a rover and add to graphicTile if found
-				if (roverLoc.containsCoord(tcor)) {
-					String rNum = roverLoc.getName(tcor).toString();
-					// make a tile with rover number
-					gtile.setRoverName(rNum.substring(6));
-					// then check if there is a terrain feature (if not SOIL
-					// then add terrain to graphicTile )
-				}
-				if (planetMap.getTile(tcor).getTerrain() != Terrain.SOIL) {
-					gtile.setTerrain(planetMap.getTile(tcor).getTerrain());
-				}
-				if (sciloc.checkLocation(tcor)) {
-					gtile.setScience(sciloc.scanLocation(tcor));
+		if (planetMap != drawnMap) {
+			drawnMap = planetMap;
+			myAppendable.drawTerrainLayer(makeTerrainTiles(planetMap), makeOutlineSegments(planetMap));
+			lastRovers = new HashMap<Coord, RoverName>();
+			lastScience = new HashMap<Coord, Science>();
+		}
+
+		HashMap<Coord, RoverName> rovers = new HashMap<Coord, RoverName>();
+		for (Entry<RoverName, Coord> entry : roverLoc.getHashMapClone().entrySet()) {
+			rovers.put(entry.getValue(), entry.getKey());
+		}
+		HashMap<Coord, Science> science = sciloc.getHashMapClone();
+
+		HashSet<Coord> changed = new HashSet<Coord>();
+		collectChanges(lastRovers, rovers, changed);
+		collectChanges(lastScience, science, changed);
+
+		ArrayList<GraphicTile> changedTiles = new ArrayList<GraphicTile>();
+		for (Coord tcor : changed) {
+			if (tcor.xpos < 0 || tcor.xpos >= planetMap.getWidth() || tcor.ypos < 0 || tcor.ypos >= planetMap.getHeight()) {
+				continue;
+			}
+			GraphicTile gtile = new GraphicTile(tcor.xpos, tcor.ypos);
+			RoverName rname = rovers.get(tcor);
+			if (rname != null) {
+				// make a tile with rover number
+				gtile.setRoverName(rname.toString().substring(6));
+			}
+			Science sci = science.get(tcor);
+			if (sci != null) {
+				gtile.setScience(sci);
+			}
+			changedTiles.add(gtile);
+		}
+		if (!changedTiles.isEmpty()) {
+			myAppendable.updateTiles(changedTiles);
+		}
+		lastRovers = rovers;
+		lastScience = science;
+	}
+
+	// adds every Coord whose value differs between the two maps
+	private static <V> void collectChanges(HashMap<Coord, V> before, HashMap<Coord, V> after, HashSet<Coord> changed) {
+		for (Entry<Coord, V> entry : after.entrySet()) {
+			if (!entry.getValue().equals(before.get(entry.getKey()))) {
+				changed.add(entry.getKey());
+			}
+		}
+		for (Coord tcor : before.keySet()) {
+			if (!after.containsKey(tcor)) {
+				changed.add(tcor);
+			}
+		}
+	}
+
+	private ArrayList<GraphicTile> makeTerrainTiles(PlanetMap planetMap) {
+		ArrayList<GraphicTile> terrainTiles = new ArrayList<GraphicTile>();
+		// scan through the map - left to right, top to bottom, only terrain features that are not SOIL
+		for (int j = 0; j < planetMap.getHeight(); j++) {
+			for (int i = 0; i < planetMap.getWidth(); i++) {
+				Terrain ter = planetMap.terrainAt(i, j);
+				if (ter != Terrain.SOIL) {
+					GraphicTile gtile = new GraphicTile(i, j);
+					gtile.setTerrain(ter);
+					terrainTiles.add(gtile);
 				}
-				graphicTiles.add(gtile);
 			}
 		}
+		return terrainTiles;
+	}
 
+	private ArrayList<LineSegment> makeOutlineSegments(PlanetMap planetMap) {
 		// Load array with target and start location outline lineSegments
 		ArrayList<LineSegment> lineSegmentArrayList = new ArrayList<LineSegment>();
 		int tileSize = GUIdisplay3.TILE_SIZE;
@@ -358,7 +465,7 @@ class MyGUIWorker3 extends SwingWorker<Void, String> {
 				.add(new LineSegment((maxSafePos_x * tileSize) + tileSize, (maxSafePos_x * tileSize) + tileSize,
 						minSafePos_y * tileSize, (maxSafePos_y * tileSize) + tileSize, boxColor));
 
-		myAppendable.drawThisGraphicTileArray(graphicTiles, lineSegmentArrayList);
+		return lineSegmentArrayList;
 	}
 
 	public void displayFullMap(RoverLocations roverLoc, ScienceLocations sciloc, PlanetMap planetMap) {
@@ -381,8 +488,9 @@ class MyGUIWorker3 extends SwingWorker<Void, String> {
 }
 
 interface MyGUIAppendable3 {
-	public void drawThisGraphicTileArray(ArrayList<GraphicTile> graphicTileArraylist,
-			ArrayList<LineSegment> lineSegmentArrayList);
+	public void drawTerrainLayer(ArrayList<GraphicTile> terrainTiles, ArrayList<LineSegment> lineSegmentArrayList);
+
+	public void updateTiles(ArrayList<GraphicTile> changedTiles);
 
 	public void append(String text);
 
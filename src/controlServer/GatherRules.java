@@ -0,0 +1,24 @@
+package controlServer;
+
+import common.Rover;
+import enums.RoverToolType;
+import enums.Terrain;
+
+/**
+ * Which terrain each gathering tool can take science from.
+ * Shared by the GATHER command and the SimulationCore so both follow the same rules.
+ */
+class GatherRules {
+
+	// a drill gets science out of rock and gravel, an excavator out of soil and sand
+	static boolean canGather(Rover rover, Terrain ter) {
+		if (hasTool(rover, RoverToolType.DRILL) && (ter == Terrain.ROCK || ter == Terrain.GRAVEL)) {
+			return true;
+		}
+		return hasTool(rover, RoverToolType.EXCAVATOR) && (ter == Terrain.SOIL || ter == Terrain.SAND);
+	}
+
+	private static boolean hasTool(Rover rover, RoverToolType tool) {
+		return rover.getTool_1() == tool || rover.getTool_2() == tool;
+	}
+}
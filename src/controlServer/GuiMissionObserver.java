@@ -0,0 +1,52 @@
+package controlServer;
+
+import java.awt.Toolkit;
+import java.util.ArrayList;
+
+import javax.swing.SwingUtilities;
+
+import common.PlanetMap;
+import common.RoverLocations;
+import common.ScienceLocations;
+import enums.Science;
+
+/**
+ * The Swing map display - GUIdisplay3 fed by a RenderScheduler so moves only mark the map dirty.
+ */
+class GuiMissionObserver implements MissionObserver {
+	private GUIdisplay3 mainPanel3;
+	private MyGUIWorker3 myWorker3;
+	// repaints the map at most DEFAULT_FRAMES_PER_SECOND times a second
+	private RenderScheduler renderScheduler;
+
+	public void missionStarted(final PlanetMap planetMap, final RoverLocations roverLocations, final ScienceLocations scienceLocations, long timeLimit, double timeScale) {
+		mainPanel3 = new GUIdisplay3(planetMap.getWidth(), planetMap.getHeight(), timeLimit, timeScale);
+		myWorker3 = new MyGUIWorker3(mainPanel3);
+		renderScheduler = new RenderScheduler(new Runnable() {
+			public void run() {
+				// one snapshot of the rover positions per frame
+				myWorker3.displayFullMap(roverLocations.clone(), scienceLocations, planetMap);
+			}
+		}, RenderScheduler.DEFAULT_FRAMES_PER_SECOND);
+		renderScheduler.start();
+
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				GUIdisplay3.createAndShowGui(myWorker3, mainPanel3);
+				renderScheduler.markDirty();
+			}
+		});
+	}
+
+	public void worldChanged() {
+		renderScheduler.markDirty();
+	}
+
+	public void scoreChanged(ArrayList<ArrayList<Science>> corpCollectedScience) {
+		myWorker3.displayScore(corpCollectedScience);
+	}
+
+	public void timeUp() {
+		Toolkit.getDefaultToolkit().beep();
+	}
+}
@@ -0,0 +1,250 @@
+package controlServer;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import common.Coord;
+import common.PlanetMap;
+import common.Rover;
+import common.RoverLocations;
+import common.ScienceLocations;
+import enums.RoverDriveType;
+import enums.RoverName;
+import enums.Science;
+import supportTools.SwarmMapInit;
+
+/**
+ * One independent world - its map, rover and science locations, scores, clock and the rovers
+ * subscribed to it. SwarmServer can host any number of these side by side; a rover picks one
+ * when it answers SUBMITNAME and its session only ever touches that mission.
+ *
+ * The mission clocks all run on one scheduler shared by every mission.
+ */
+class Mission {
+	// the mission a rover joins when it does not name one
+	static final String DEFAULT_NAME = "default";
+
+	final String name;
+	final PlanetMap planetMap;
+	final RoverLocations roverLocations;
+	final ScienceLocations scienceLocations;
+	// index 0 is the sample corp, 1 blue and 2 green
+	final ArrayList<ArrayList<Science>> corpCollectedScience = new ArrayList<ArrayList<Science>>();
+
+	// the map display, or a console stand in
+	final MissionObserver observer;
+	// null unless the mission runs in tick mode
+	final SimulationCore simulation;
+
+	// one request limiter per rover, shared by all of that rover's connections
+	private final ConcurrentHashMap<RoverName, RateLimiter> rateLimiters = new ConcurrentHashMap<RoverName, RateLimiter>();
+	// guards the check-then-change section of GATHER
+	final ReentrantLock scienceGatherLock = new ReentrantLock();
+	// sessions that sent SUBSCRIBE and get LOC, TIMER and SCIENCE_TAKEN pushed to them
+	final CopyOnWriteArraySet<RoverSession> subscribers = new CopyOnWriteArraySet<RoverSession>();
+
+	private final double timeScale;
+	private final int tickPeriodMillis;
+	// mission time - cooldowns, the countdown and TIMER all read this clock, never the wall clock
+	private VirtualClock clock;
+	private long startTime;
+	private volatile boolean roversAreGO = false;
+	private final ArrayList<ScheduledFuture<?>> clockTasks = new ArrayList<ScheduledFuture<?>>();
+
+	/**
+	 * Builds the world from a loaded map. In tick mode tickPeriodMillis is the real length of a
+	 * tick, otherwise mission time runs timeScale times faster than real time.
+	 */
+	Mission(String name, SwarmMapInit mapInit, MissionObserver observer, boolean tickMode, double timeScale, int tickPeriodMillis) {
+		this.name = name;
+		this.planetMap = mapInit.getPlanetMap();
+		this.roverLocations = mapInit.getRoverLocations();
+		this.scienceLocations = mapInit.getScienceLocations();
+		for (int corp = 0; corp < 3; corp++) {
+			corpCollectedScience.add(new ArrayList<Science>());
+		}
+		this.observer = observer;
+		this.timeScale = timeScale;
+		this.tickPeriodMillis = tickPeriodMillis;
+		this.clock = new VirtualClock(timeScale);
+		this.simulation = tickMode
+				? new SimulationCore(planetMap, roverLocations, scienceLocations, corpCollectedScience, new MissionTickListener())
+				: null;
+	}
+
+	/**
+	 * Starts the countdown to the end of the mission and the TIMER pushes on the shared
+	 * scheduler. In tick mode the clock advances the simulation instead and the mission
+	 * ends after MISSION_TICKS ticks.
+	 */
+	synchronized void start(ScheduledExecutorService scheduler) {
+		observer.missionStarted(planetMap, roverLocations, scienceLocations, SwarmServer.MAXIMUM_ACTIVITY_TIME_LIMIT, timeScale);
+		clock = new VirtualClock(timeScale);
+		// taken before the clock is scheduled so every tick lands just after a whole second
+		startTime = clock.currentTimeMillis();
+		roversAreGO = true;
+		if (simulation != null) {
+			clockTasks.add(scheduler.scheduleAtFixedRate(new Runnable() {
+				public void run() {
+					try {
+						simulation.advance();
+					} catch (RuntimeException e) {
+						// an exception would cancel every later tick
+						e.printStackTrace();
+					}
+					long tick = simulation.getTick();
+					if (tick >= SimulationCore.MISSION_TICKS) {
+						end();
+					} else if (tick % (1000 / SimulationCore.TICK_MILLIS) == 0) {
+						pushTimer();
+					}
+				}
+			}, tickPeriodMillis, tickPeriodMillis, TimeUnit.MILLISECONDS));
+			return;
+		}
+		clockTasks.add(scheduler.schedule(new Runnable() {
+			public void run() {
+				end();
+			}
+		}, clock.toRealMillis(SwarmServer.MAXIMUM_ACTIVITY_TIME_LIMIT), TimeUnit.MILLISECONDS));
+		// TIMER tick for the subscribed rovers once a mission second, stops when time is up
+		long secondMillis = clock.toRealMillis(1000);
+		clockTasks.add(scheduler.scheduleAtFixedRate(new Runnable() {
+			public void run() {
+				pushTimer();
+			}
+		}, secondMillis, secondMillis, TimeUnit.MILLISECONDS));
+	}
+
+	// time is up - rovers can no longer send commands
+	synchronized void end() {
+		if (!roversAreGO) {
+			return;
+		}
+		roversAreGO = false;
+		for (ScheduledFuture<?> task : clockTasks) {
+			task.cancel(false);
+		}
+		clockTasks.clear();
+		System.out.println("Time is up - Return mission is launching (" + name + ")");
+		observer.timeUp();
+	}
+
+	boolean isRunning() {
+		return roversAreGO;
+	}
+
+	long currentTimeMillis() {
+		return clock.currentTimeMillis();
+	}
+
+	// whole seconds left on the mission countdown, in mission time when running in tick mode
+	int getTimeRemaining() {
+		long elapsed = simulation != null ? simulation.getTimeMillis() : clock.currentTimeMillis() - startTime;
+		return (SwarmServer.MAXIMUM_ACTIVITY_TIME_LIMIT - (int) elapsed) / 1000;
+	}
+
+	// ** MOVE **
+	Coord doMove(Rover thisRover, String requestedMoveDir) {
+		// No global lock here - planetMap terrain never changes and roverLocations.moveRover
+		// reserves the target square atomically, so moves on different squares run in parallel
+		// and a contested square goes to whichever rover reserves it first
+		Coord roverPos = roverLocations.getLocation(thisRover.getRoverName());
+		RoverDriveType drive = thisRover.getRoverDrive();
+		int dir = MovementRules.directionIndex(requestedMoveDir);
+
+		// Check that is has been at a minimum of "time per square" (drive velocity) since the rover last moved
+		if (dir < 0 || thisRover.getRoverLastMoveTime() + MovementRules.timePerSquare(drive) >= clock.currentTimeMillis()) {
+			return roverPos;
+		}
+
+		int xNewPos = roverPos.xpos + MovementRules.DX[dir];
+		int yNewPos = roverPos.ypos + MovementRules.DY[dir];
+		if (!checkValidLocation(xNewPos, yNewPos)) {
+			// On the edge, returns rovers current position unchanged
+			return roverPos;
+		}
+
+		// check planetMap (immutable) - is the rover stuck where it is, or blocked from where it wants to go
+		if (!MovementRules.canMove(drive, planetMap.terrainAt(roverPos), planetMap.terrainAt(xNewPos, yNewPos))) {
+			return roverPos;
+		}
+
+		// Move to the new map square, unless occupied by another rover
+		Coord newPos = new Coord(xNewPos, yNewPos);
+		if (roverLocations.moveRover(thisRover.getRoverName(), newPos)) {
+			// if moveRover call is successful then update latest move time value
+			thisRover.updateMoveTime(clock.currentTimeMillis());
+			return newPos;
+		}
+		return roverPos;
+	}
+
+	boolean checkValidLocation(int xpos, int ypos) {
+		return xpos >= 0 && xpos < planetMap.getWidth() && ypos >= 0 && ypos < planetMap.getHeight();
+	}
+
+	// only marks the map as changed - the render thread redraws it on its next frame
+	void updateGUIDisplay() {
+		observer.worldChanged();
+	}
+
+	void scoreDisplayUpdate() {
+		observer.scoreChanged(corpCollectedScience);
+	}
+
+	// pushes a SCIENCE_TAKEN event to every other subscribed rover that can see the square
+	// takenBy is null when every rover that can see it should hear about it
+	void scienceTaken(Coord loc, RoverSession takenBy) {
+		for (RoverSession session : subscribers) {
+			if (session != takenBy && session.canSee(loc)) {
+				session.push("SCIENCE_TAKEN " + loc.xpos + " " + loc.ypos);
+			}
+		}
+	}
+
+	RateLimiter getRateLimiter(RoverName rname) {
+		RateLimiter limiter = rateLimiters.get(rname);
+		if (limiter == null) {
+			limiter = new RateLimiter(SwarmServer.CALLS_PER_SECOND_LIMIT);
+			RateLimiter raced = rateLimiters.putIfAbsent(rname, limiter);
+			if (raced != null) {
+				limiter = raced;
+			}
+		}
+		return limiter;
+	}
+
+	private void pushTimer() {
+		int timeRemaining = getTimeRemaining();
+		for (RoverSession session : subscribers) {
+			session.push("TIMER " + timeRemaining);
+		}
+	}
+
+	/**
+	 * Passes what happened in a simulation tick on to the display and the subscribed rovers.
+	 */
+	private class MissionTickListener implements SimulationCore.TickListener {
+		public void roverMoved(RoverName rname, Coord newPos) {
+			for (RoverSession session : subscribers) {
+				if (session.isRover(rname)) {
+					session.push("LOC " + newPos.xpos + " " + newPos.ypos);
+				}
+			}
+			observer.worldChanged();
+		}
+
+		public void scienceGathered(Rover rover, Coord pos, Science science) {
+			// the observer reports the new totals, nothing is printed here inside the tick
+			observer.scoreChanged(corpCollectedScience);
+			observer.worldChanged();
+			scienceTaken(pos, null);
+		}
+	}
+}
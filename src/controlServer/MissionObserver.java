@@ -0,0 +1,31 @@
+package controlServer;
+
+import java.util.ArrayList;
+
+import common.PlanetMap;
+import common.RoverLocations;
+import common.ScienceLocations;
+import enums.Science;
+
+/**
+ * Watches a running mission. SwarmServer only talks to its display through this interface,
+ * so the Swing map (GuiMissionObserver) can be swapped for a console one (ConsoleMissionObserver)
+ * when the server runs headless.
+ *
+ * worldChanged and scoreChanged are called on the rover connection threads and must return quickly.
+ */
+interface MissionObserver {
+
+	// called once the map is loaded, before any rover connects
+	// timeLimit is in mission time, which runs timeScale times faster than real time
+	void missionStarted(PlanetMap planetMap, RoverLocations roverLocations, ScienceLocations scienceLocations, long timeLimit, double timeScale);
+
+	// a rover moved or science was gathered
+	void worldChanged();
+
+	// index 0 is the sample corp, 1 blue and 2 green
+	void scoreChanged(ArrayList<ArrayList<Science>> corpCollectedScience);
+
+	// the activity time limit ran out, rovers can no longer send commands
+	void timeUp();
+}
@@ -0,0 +1,99 @@
+package controlServer;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+
+import enums.RoverDriveType;
+import enums.Terrain;
+
+/**
+ * Movement rules for every drive type, precomputed into a lookup table.
+ *
+ * Each drive is configured once below with its speed, the terrain it gets stuck on and the
+ * terrain it can not drive onto. From that the table canMove[drive][fromTerrain][toTerrain]
+ * is built, so doMove is a couple of array reads no matter how many drive types there are.
+ * A new drive type only needs a line in the static block.
+ */
+class MovementRules {
+
+	// per drive configuration
+	private static class DriveConfig {
+		final int timePerSquare;
+		final EnumSet<Terrain> stuckOn;
+		final EnumSet<Terrain> cannotEnter;
+
+		DriveConfig(int timePerSquare, EnumSet<Terrain> stuckOn, EnumSet<Terrain> cannotEnter) {
+			this.timePerSquare = timePerSquare;
+			this.stuckOn = stuckOn;
+			this.cannotEnter = cannotEnter;
+		}
+	}
+
+	private static final EnumMap<RoverDriveType, DriveConfig> driveConfigs = new EnumMap<RoverDriveType, DriveConfig>(RoverDriveType.class);
+
+	static {
+		// wheels get stuck in sand and can not climb onto rock
+		driveConfigs.put(RoverDriveType.WHEELS, new DriveConfig(SwarmServer.WHEELS_TIME_PER_SQUARE,
+				EnumSet.of(Terrain.SAND), EnumSet.of(Terrain.ROCK, Terrain.NONE)));
+		// treads will get stuck on rocks
+		driveConfigs.put(RoverDriveType.TREADS, new DriveConfig(SwarmServer.TREADS_TIME_PER_SQUARE,
+				EnumSet.of(Terrain.ROCK), EnumSet.of(Terrain.NONE)));
+		// walkers also get stuck in sand
+		driveConfigs.put(RoverDriveType.WALKER, new DriveConfig(SwarmServer.WALKER_TIME_PER_SQUARE,
+				EnumSet.of(Terrain.SAND), EnumSet.of(Terrain.NONE)));
+		// RoverDriveType.NONE has no entry so it never moves
+	}
+
+	// direction offsets indexed by directionIndex()
+	static final int[] DX = { 0, 0, 1, -1 };
+	static final int[] DY = { -1, 1, 0, 0 };
+
+	private static final boolean[][][] canMove;
+	private static final int[] timePerSquare;
+
+	static {
+		RoverDriveType[] drives = RoverDriveType.values();
+		Terrain[] terrains = Terrain.values();
+		canMove = new boolean[drives.length][terrains.length][terrains.length];
+		timePerSquare = new int[drives.length];
+		for (RoverDriveType drive : drives) {
+			DriveConfig config = driveConfigs.get(drive);
+			if (config == null) {
+				timePerSquare[drive.ordinal()] = Integer.MAX_VALUE;
+				continue;
+			}
+			timePerSquare[drive.ordinal()] = config.timePerSquare;
+			for (Terrain from : terrains) {
+				for (Terrain to : terrains) {
+					canMove[drive.ordinal()][from.ordinal()][to.ordinal()] =
+							!config.stuckOn.contains(from) && !config.cannotEnter.contains(to);
+				}
+			}
+		}
+	}
+
+	static boolean canMove(RoverDriveType drive, Terrain from, Terrain to) {
+		return canMove[drive.ordinal()][from.ordinal()][to.ordinal()];
+	}
+
+	// milliseconds the drive needs between moves, Integer.MAX_VALUE if it can not move at all
+	static int timePerSquare(RoverDriveType drive) {
+		return timePerSquare[drive.ordinal()];
+	}
+
+	// N S E W -> 0 1 2 3, -1 for anything else
+	static int directionIndex(String dir) {
+		switch (dir) {
+		case "N":
+			return 0;
+		case "S":
+			return 1;
+		case "E":
+			return 2;
+		case "W":
+			return 3;
+		default:
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,296 @@
+package controlServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking alternative to the thread per rover Handler.
+ * One selector thread does all of the socket reads and writes, complete lines are handed
+ * to a small worker pool that runs them through a RoverSession. Each connection is only
+ * ever worked on by one worker at a time so the commands from a rover stay in order.
+ *
+ * Speaks exactly the same line protocol as the Handler, the rovers can not tell the difference.
+ */
+class NioFrontEnd {
+	private static final int READ_BUFFER_SIZE = 4096;
+	// longest line a rover may send - far more than any command, a BATCH of several hundred
+	// commands still fits. A client that goes past it without a newline is dropped instead of
+	// growing partialLine until the heap runs out.
+	private static final int MAX_LINE_LENGTH = 8192;
+	// the server speaks first (SUBMITNAME), so a connect dropped from a full listen queue
+	// leaves the rover waiting forever - the default backlog of 50 is far too small for a burst
+	private static final int ACCEPT_BACKLOG = 1024;
+
+	private final int port;
+	private final ExecutorService workers;
+	// connections that have output waiting, the selector thread picks these up and turns on OP_WRITE
+	private final Queue<Connection> writeRequests = new ConcurrentLinkedQueue<Connection>();
+	private Selector selector;
+
+	public NioFrontEnd(int port, int workerThreads) {
+		this.port = port;
+		this.workers = Executors.newFixedThreadPool(workerThreads);
+	}
+
+	/**
+	 * Runs the selector loop, does not return until the server is shut down.
+	 */
+	public void run() throws IOException {
+		selector = Selector.open();
+		ServerSocketChannel listener = ServerSocketChannel.open();
+		listener.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+		listener.configureBlocking(false);
+		listener.register(selector, SelectionKey.OP_ACCEPT);
+
+		try {
+			while (true) {
+				selector.select();
+				registerPendingWrites();
+
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						accept(listener);
+						continue;
+					}
+					Connection conn = (Connection) key.attachment();
+					try {
+						if (key.isReadable()) {
+							conn.readFromChannel();
+						}
+						if (key.isValid() && key.isWritable()) {
+							conn.writeToChannel();
+						}
+					} catch (IOException e) {
+						System.out.println(e);
+						conn.close();
+					}
+				}
+			}
+		} finally {
+			listener.close();
+			selector.close();
+			workers.shutdown();
+		}
+	}
+
+	// takes every connection that is waiting, so a burst of connects never fills the listen queue
+	private void accept(ServerSocketChannel listener) throws IOException {
+		SocketChannel channel;
+		while ((channel = listener.accept()) != null) {
+			accept(channel);
+		}
+	}
+
+	private void accept(SocketChannel channel) throws IOException {
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true);
+		Connection conn = new Connection(channel);
+		conn.key = channel.register(selector, SelectionKey.OP_READ, conn);
+
+		// Request a name from this client, same as the Handler does
+		conn.session.requestName();
+		conn.out.flush();
+	}
+
+	private void registerPendingWrites() {
+		Connection conn;
+		while ((conn = writeRequests.poll()) != null) {
+			if (conn.key.isValid()) {
+				conn.key.interestOps(conn.key.interestOps() | SelectionKey.OP_WRITE);
+			}
+		}
+	}
+
+
+	/**
+	 * State for one rover connection. The selector thread fills the inbox, a worker drains it.
+	 */
+	private class Connection implements Runnable {
+		private final SocketChannel channel;
+		private SelectionKey key;
+		private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+		private final StringBuilder partialLine = new StringBuilder();
+		private final Queue<String> inbox = new ConcurrentLinkedQueue<String>();
+		private final Queue<ByteBuffer> outbox = new ConcurrentLinkedQueue<ByteBuffer>();
+		private final AtomicBoolean scheduled = new AtomicBoolean(false);
+		private final PrintWriter out;
+		private final RoverSession session;
+		private volatile boolean closed = false;
+		// set by a worker that wants the connection closed once its last reply has gone out
+		private volatile boolean closing = false;
+
+		Connection(SocketChannel channel) {
+			this.channel = channel;
+			this.out = new PrintWriter(new ChannelOutputStream(this), false);
+			this.session = new RoverSession(out);
+		}
+
+		// selector thread only
+		void readFromChannel() throws IOException {
+			int count = channel.read(readBuffer);
+			if (count < 0) {
+				close();
+				return;
+			}
+			readBuffer.flip();
+			while (readBuffer.hasRemaining()) {
+				char c = (char) (readBuffer.get() & 0xff);
+				if (c == '\n') {
+					int len = partialLine.length();
+					if (len > 0 && partialLine.charAt(len - 1) == '\r') {
+						partialLine.setLength(len - 1);
+					}
+					inbox.add(partialLine.toString());
+					partialLine.setLength(0);
+				} else if (partialLine.length() < MAX_LINE_LENGTH) {
+					partialLine.append(c);
+				} else {
+					System.out.println("NioFrontEnd: line longer than " + MAX_LINE_LENGTH + " characters, dropping connection");
+					readBuffer.clear();
+					close();
+					return;
+				}
+			}
+			readBuffer.clear();
+			schedule();
+		}
+
+		// selector thread only
+		void writeToChannel() throws IOException {
+			ByteBuffer buf;
+			while ((buf = outbox.peek()) != null) {
+				channel.write(buf);
+				if (buf.hasRemaining()) {
+					// socket buffer is full, wait for the next OP_WRITE
+					return;
+				}
+				outbox.poll();
+			}
+			if (closing) {
+				close();
+				return;
+			}
+			key.interestOps(SelectionKey.OP_READ);
+		}
+
+		private void schedule() {
+			if (closed || closing) {
+				// nothing more will be answered on this connection, drop the lines still waiting
+				// instead of rescheduling a worker that will never take them
+				inbox.clear();
+				return;
+			}
+			if (!inbox.isEmpty() && scheduled.compareAndSet(false, true)) {
+				workers.execute(this);
+			}
+		}
+
+		// worker thread - drains every complete line that has arrived so far
+		public void run() {
+			try {
+				String line;
+				while (!closed && !closing && (line = inbox.poll()) != null) {
+					handleLine(line);
+				}
+			} catch (Exception e) {
+				e.printStackTrace();
+				closeAfterWrite();
+			} finally {
+				out.flush();
+				scheduled.set(false);
+			}
+			// pick up anything that arrived while we were finishing up
+			schedule();
+		}
+
+		private void handleLine(String line) throws Exception {
+			if (!session.hasName()) {
+				if (!session.submitName(line)) {
+					closeAfterWrite();
+				}
+				return;
+			}
+			if (!session.isMissionRunning()) {
+				closeAfterWrite();
+				return;
+			}
+			if (!session.processCommand(line)) {
+				closeAfterWrite();
+			}
+		}
+
+		// worker thread - hands over what the session has written so far, the selector thread
+		// closes the connection once the outbox is empty (like the Handler flushing before it returns)
+		private void closeAfterWrite() {
+			out.flush();
+			closing = true;
+			writeRequests.add(this);
+			selector.wakeup();
+		}
+
+		void close() {
+			closed = true;
+			session.close();
+			if (key != null) {
+				key.cancel();
+			}
+			try {
+				channel.close();
+			} catch (IOException e) {  }
+		}
+	}
+
+
+	/**
+	 * Collects what the session prints, flush() hands the bytes over to the selector thread.
+	 */
+	private class ChannelOutputStream extends OutputStream {
+		private final Connection conn;
+		private final ByteArrayOutputStream pending = new ByteArrayOutputStream(512);
+
+		ChannelOutputStream(Connection conn) {
+			this.conn = conn;
+		}
+
+		@Override
+		public void write(int b) {
+			pending.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			pending.write(b, off, len);
+		}
+
+		@Override
+		public void flush() {
+			if (pending.size() == 0 || conn.closed) {
+				return;
+			}
+			conn.outbox.add(ByteBuffer.wrap(pending.toByteArray()));
+			pending.reset();
+			writeRequests.add(conn);
+			selector.wakeup();
+		}
+	}
+}
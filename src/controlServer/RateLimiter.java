@@ -0,0 +1,67 @@
+package controlServer;
+
+/**
+ * Token bucket request limiter for one rover.
+ *
+ * The bucket holds up to CALLS_PER_SECOND_LIMIT tokens and refills continuously at that many
+ * tokens a second, so a rover can burst up to the limit and then sustain exactly the limit.
+ * Each command costs tokens according to how much server work it is (see costOf), a command
+ * the bucket can not pay for is answered with THROTTLED and not run.
+ */
+class RateLimiter {
+	// command costs - SCAN builds a whole window of tiles, LOC is a single lookup
+	static final int DEFAULT_COST = 1;
+	static final int SCAN_COST = 5;
+	static final int GATHER_COST = 2;
+
+	private final double capacity;
+	private final double tokensPerNano;
+	private double tokens;
+	private long lastRefillNanos;
+
+	private long accepted;
+	private long throttled;
+
+	RateLimiter(int tokensPerSecond) {
+		this.capacity = tokensPerSecond;
+		this.tokensPerNano = tokensPerSecond / 1e9;
+		this.tokens = tokensPerSecond;
+		this.lastRefillNanos = System.nanoTime();
+	}
+
+	// short and never blocks, so holding the monitor does not hurt virtual threads
+	synchronized boolean tryAcquire(int cost) {
+		long now = System.nanoTime();
+		tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+		lastRefillNanos = now;
+		if (tokens >= cost) {
+			tokens -= cost;
+			accepted++;
+			return true;
+		}
+		throttled++;
+		return false;
+	}
+
+	synchronized long getAccepted() {
+		return accepted;
+	}
+
+	synchronized long getThrottled() {
+		return throttled;
+	}
+
+	static int costOf(String command) {
+		if (command.startsWith("SCAN_FORMAT") || command.startsWith("RATE")) {
+			// protocol setup and limiter stats are free so a throttled client can still check in
+			return 0;
+		}
+		if (command.startsWith("SCAN")) {
+			return SCAN_COST;
+		}
+		if (command.startsWith("GATHER")) {
+			return GATHER_COST;
+		}
+		return DEFAULT_COST;
+	}
+}
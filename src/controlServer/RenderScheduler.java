@@ -0,0 +1,65 @@
+package controlServer;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coalescing display refresh.
+ *
+ * Rover commands only mark the world dirty, which is one atomic write. A single render thread
+ * checks the flag at a fixed frame rate and, if anything changed since the last frame, runs the
+ * render task once. A burst of MOVEs between two frames becomes one snapshot and one repaint,
+ * and MOVE latency no longer depends on the size of the map.
+ */
+class RenderScheduler {
+	static final int DEFAULT_FRAMES_PER_SECOND = 30;
+
+	private final AtomicBoolean dirty = new AtomicBoolean();
+	private final Runnable render;
+	private final long framePeriodMillis;
+	private final ScheduledExecutorService executor;
+
+	RenderScheduler(Runnable render, int framesPerSecond) {
+		this.render = render;
+		this.framePeriodMillis = Math.max(1, 1000 / framesPerSecond);
+		this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "SwarmServer-render");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	void start() {
+		executor.scheduleAtFixedRate(new Runnable() {
+			public void run() {
+				renderIfDirty();
+			}
+		}, framePeriodMillis, framePeriodMillis, TimeUnit.MILLISECONDS);
+	}
+
+	// safe to call from any thread, as often as you like
+	void markDirty() {
+		dirty.set(true);
+	}
+
+	void stop() {
+		executor.shutdown();
+	}
+
+	private void renderIfDirty() {
+		if (!dirty.getAndSet(false)) {
+			return;
+		}
+		try {
+			render.run();
+		} catch (RuntimeException e) {
+			// an exception would cancel every later frame
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,582 @@
+package controlServer;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import common.Coord;
+import common.Rover;
+import common.ScanMap;
+import common.ScanMapCodec;
+import common.ScienceLocations;
+import enums.RoverName;
+import enums.RoverToolType;
+import enums.Science;
+import enums.Terrain;
+
+/**
+ * The per connection side of the rover line protocol (SUBMITNAME, MOVE, LOC, SCAN, GATHER, ...)
+ * This used to live inside of SwarmServer.Handler, it was pulled out so that both the
+ * thread per rover Handler and the NioFrontEnd can drive the same command processing.
+ *
+ * A session is not thread safe, the front end has to make sure only one thread at a time
+ * is feeding it lines from a given rover. The exception is push(), which any thread can call
+ * once the rover has sent SUBSCRIBE.
+ */
+class RoverSession {
+	//currently using these as the Rover Object attributes
+	// this should be replaced with a Rover Object
+    private String roverNameString;
+    private Rover rover;
+    // the world this rover joined at SUBMITNAME
+    private Mission mission;
+    private PrintWriter outToRover;
+
+    // keeps track of Rover's current location
+    private int xpos = 0;
+    private int ypos = 0;
+
+    // Gson is thread safe so every session shares one instance instead of building one per request
+    // no pretty printing - a compact json response is a single line on the wire
+    static final Gson gson = new GsonBuilder()
+			.enableComplexMapKeySerialization()
+			.create();
+
+    // set by SCAN_FORMAT BINARY, SCAN then answers with the packed ScanMapCodec form
+    private boolean binaryScan = false;
+
+    // the packed scan window this rover was last sent by SCAN_DELTA
+    private byte[] lastScanSent = null;
+
+    // set by SUBSCRIBE - the server then pushes "PUSH ..." lines between responses
+    private volatile boolean subscribed = false;
+    private final Queue<String> pendingPushes = new ConcurrentLinkedQueue<String>();
+    // held while a command writes its response and while pushes are written, so a push
+    // line never lands in the middle of a multi-line response
+    private final ReentrantLock outputLock = new ReentrantLock();
+    // where pushes are written when a flush is a blocking socket write (the Handler), so the
+    // mission clock only ever queues them - null when a flush just hands bytes over (NIO)
+    private final Executor pushWriter;
+    // at most one push write per session is waiting on the pushWriter
+    private final AtomicBoolean pushWriteScheduled = new AtomicBoolean(false);
+
+
+    public RoverSession(PrintWriter outToRover) {
+        this(outToRover, null);
+    }
+
+    public RoverSession(PrintWriter outToRover, Executor pushWriter) {
+        this.outToRover = outToRover;
+        this.pushWriter = pushWriter;
+    }
+
+    /**
+     * Sends the name request that opens every rover connection.
+     */
+    public void requestName() {
+        outToRover.println("SUBMITNAME");
+    }
+
+    public boolean hasName() {
+        return rover != null;
+    }
+
+    public String getRoverNameString() {
+        return roverNameString;
+    }
+
+    // true until the mission this rover joined runs out of time
+    public boolean isMissionRunning() {
+        return mission != null && mission.isRunning();
+    }
+
+    /**
+     * Takes the reply to SUBMITNAME and builds the Rover object connected to this session.
+     * The reply is the rover name, optionally followed by the mission to join
+     * ("ROVER_03 MISSION 2"), without one the rover joins the default mission.
+     * returns false if the client went away before giving a name or named an unknown mission
+     */
+    public boolean submitName(String nameLine) {
+        if (nameLine == null) {
+            System.out.println("null has connected to server");
+            return false;
+        }
+        String missionName = null;
+        int missionAt = nameLine.indexOf(" MISSION ");
+        if (missionAt >= 0) {
+            missionName = nameLine.substring(missionAt + " MISSION ".length()).trim();
+            nameLine = nameLine.substring(0, missionAt);
+        }
+        roverNameString = nameLine.trim();
+        mission = SwarmServer.findMission(missionName);
+        if (mission == null) {
+            System.out.println(roverNameString + " asked for unknown mission " + missionName);
+            outToRover.println("UNKNOWN_MISSION " + missionName);
+            return false;
+        }
+        System.out.println(roverNameString + " has connected to server" + (missionName != null ? " for mission " + mission.name : ""));
+
+        // TODO check to see if this rover thread already exists.
+        // if exists and is active - refuse connection
+        // if exists and socket is not active - reconnect to that socket
+        // enforce time limit between reconnection to minimize spamming
+
+        // make and instantiate a Rover object connected to this thread
+        RoverName rname = RoverName.getEnum(roverNameString);
+        rover = new Rover(rname);
+        return true;
+    }
+
+    /**
+     * Runs one line of the rover protocol and writes the response.
+     * returns false when the connection should be dropped
+     */
+    public boolean processCommand(String input) throws Exception {
+        outputLock.lock();
+        try {
+        	return runCommand(input);
+        } finally {
+        	// pushes queued while the command ran go out right after its response
+        	writePendingPushes();
+        	outputLock.unlock();
+        }
+    }
+
+    private boolean runCommand(String input) throws Exception {
+        //condition the input to empty string if null
+        if (input == null) {
+        	input = "";
+        }
+
+    	/**
+    	 * ******************** BATCH **********************
+    	 */
+        // BATCH LOC;SCAN;TIMER;MOVE E;LOC - runs the commands in order and returns all of their
+        // responses, each exactly as it would be on its own, between BATCH and BATCH_END.
+        // Every command in the batch is charged to the rate limiter separately.
+        if (input.startsWith("BATCH")){
+        	outToRover.println("BATCH");
+        	for (String command : input.substring("BATCH".length()).split(";")){
+        		command = command.trim();
+        		if (command.isEmpty() || command.startsWith("BATCH")){
+        			// no nested batches
+        			continue;
+        		}
+        		if (!runCommand(command)){
+        			return false;
+        		}
+        	}
+        	outToRover.println("BATCH_END");
+        	return true;
+        }
+
+        boolean keepConnection = true;
+
+        // token bucket per rover - a command over the limit is answered with THROTTLED and skipped,
+        // the connection stays open so the rover can slow down and carry on
+        RateLimiter limiter = mission.getRateLimiter(rover.getRoverName());
+        if(!limiter.tryAcquire(RateLimiter.costOf(input))){
+        	// MOVE and GATHER never write a response, so a throttled one stays silent like a move
+        	// or gather in cooldown and pipelined responses stay in step with the requests
+        	if(!hasNoResponse(input)){
+        		outToRover.println("THROTTLED");
+        	}
+        	return keepConnection;
+        }
+
+        // debug checking
+        //System.out.println("SWARM_SERVER_"+roverNameString+ "_thread: recieved command " + input);
+
+
+
+        /**
+    	 * ******************** MOVE **********************
+    	 */
+        if (input.startsWith("MOVE")){
+        	//System.out.println("SWARM: ------ MOVE ------"); //debug test input parsing
+        	// trim header off of input string
+        	String dir = input.substring(5);
+
+        	// invoke the doMove method to update the Rover position in the RoverLocations (roverLocations) static object
+        	// this method also returns a Coord with the Rover position after the move attempt.
+        	// in tick mode the move is only queued, it happens (and is pushed) when the tick is resolved
+        	if (mission.simulation != null){
+        		mission.simulation.submitMove(rover, dir);
+        		return keepConnection;
+        	}
+        	Coord oldPos = mission.roverLocations.getLocation(rover.getRoverName());
+        	Coord newPos = mission.doMove(rover, dir);
+        	if (subscribed && !newPos.equals(oldPos)){
+        		pendingPushes.add("LOC " + newPos.xpos + " " + newPos.ypos);
+        	}
+
+        	// Update the GUI display with all the new rover locations when any individual rover moves
+	    	mission.updateGUIDisplay();
+
+
+
+    	/**
+    	 * ******************** LOC **********************
+    	 */
+        // gets the current position of the rover
+        } else if (input.startsWith("LOC")){
+        	//System.out.println("SWARM: ------ LOC ------"); //debug test input parsing
+        	// does not need to synchronize-lock scienceLocations because not changing any values
+	    	Coord roverPos = mission.roverLocations.getLocation(rover.getRoverName());
+	    	xpos = roverPos.xpos;
+	    	ypos = roverPos.ypos;
+        	outToRover.println("LOC " + xpos + " " + ypos);
+
+
+
+        /**
+    	 * ***************** START_LOC *******************
+    	 */
+        // gets the current position of the rover
+        } else if (input.startsWith("START_LOC")){
+        	//System.out.println("SWARM: ------ START_LOC ------"); //debug test input parsing
+        	// does not need to synchronize-lock scienceLocations because not changing any values
+        	Coord startPos = mission.planetMap.getStartPosition();
+        	outToRover.println("START_LOC " + startPos.xpos + " " + startPos.ypos);
+
+
+
+    	/**
+    	 * **************** TARGET_LOC ********************
+    	 */
+        // gets the current position of the rover
+        } else if (input.startsWith("TARGET_LOC")){
+        	//System.out.println("SWARM: ------ TARGET_LOC ------"); //debug test input parsing
+        	// does not need to synchronize-lock scienceLocations because not changing any values
+        	Coord targetPos = mission.planetMap.getTargetPosition();
+        	outToRover.println("TARGET_LOC " + targetPos.xpos + " " + targetPos.ypos);
+
+
+
+    	/**
+    	 * ***************** SCAN_FORMAT *******************
+    	 */
+        // negotiates the SCAN response format, BINARY or JSON (the default)
+        // has to be checked before SCAN because it starts with the same letters
+        } else if (input.startsWith("SCAN_FORMAT")){
+        	binaryScan = input.endsWith("BINARY");
+        	outToRover.println("SCAN_FORMAT " + (binaryScan ? "BINARY" : "JSON"));
+
+
+
+    	/**
+    	 * ***************** SCAN_DELTA *******************
+    	 */
+        // packed scan that only carries the tiles that changed since the last SCAN_DELTA
+        // the first one (or one after a range change) is a FULL packed scan
+        } else if (input.startsWith("SCAN_DELTA")){
+        	byte[] packedScan = retrivePackedScanMap(rover);
+
+			outToRover.println("SCAN_DELTA"); //returns command header as check
+
+			if (lastScanSent == null || lastScanSent[0] != packedScan[0]) {
+				outToRover.println("FULL " + Base64.getEncoder().encodeToString(packedScan));
+			} else {
+				outToRover.println("DELTA " + Base64.getEncoder().encodeToString(ScanMapCodec.encodeDelta(lastScanSent, packedScan)));
+			}
+			lastScanSent = packedScan;
+
+			outToRover.println("SCAN_END");
+
+
+
+    	/**
+    	 * ******************** SCAN **********************
+    	 */
+        // return json array of map area close around the rover
+    	// may check rover tool for mastcam to increase range  of map results - maybe
+        } else if (input.startsWith("SCAN")){
+
+			outToRover.println("SCAN"); //returns command header as check
+
+			if (binaryScan) {
+				// one line of Base64 packed tiles
+				outToRover.println(Base64.getEncoder().encodeToString(retrivePackedScanMap(rover)));
+			} else {
+				//stream the json straight into the socket buffer
+				gson.toJson(retriveScanMap(rover), outToRover);
+				outToRover.println();
+			}
+
+			//to mark the end of the json string
+			outToRover.println("SCAN_END");
+
+
+
+		/**
+    	 * ******************** TIMER **********************
+    	 */
+        // returns the total number of seconds remaining on the countdown timer
+        } else if (input.startsWith("TIMER")){
+        	outToRover.println("TIMER " + mission.getTimeRemaining());
+
+
+
+    	/**
+    	 * ******************* GATHER ***********************
+    	 */
+    	// collect the science using either a drill or harvester
+    	// GATHER is a command with no return response
+        } else if(input.startsWith("GATHER")) {
+        	if (mission.simulation != null){
+        		mission.simulation.submitGather(rover);
+        		return keepConnection;
+        	}
+
+        	// does not need to synchronize-lock roverLocations because not changing any values
+        	Coord roverPos = mission.roverLocations.getLocation(rover.getRoverName());
+        	boolean gathered = false;
+
+        	// lock scienceLocations because this requires checking then changing it
+        	mission.scienceGatherLock.lock();
+        	try {
+            	// true if this coordinate is in the scienceLocations hashmap and gather cooldown has been satisfied
+            	if(mission.scienceLocations.checkLocation(roverPos)
+            			&& (rover.getRoverLastGatherTime() + SwarmServer.GATHER_TIME_PER_TILE < mission.currentTimeMillis())){
+
+            		// a drill works on rock and gravel, an excavator on soil and sand
+            		if(GatherRules.canGather(rover, mission.planetMap.terrainAt(roverPos))){
+            			System.out.println("SWARM_"+roverNameString+ "_thread: GATHER- rover tool= "+rover.getTool_1()+" and "+rover.getTool_2());
+            			System.out.println("SWARM_"+roverNameString+ "_thread: GATHER- terrain= "+mission.planetMap.terrainAt(roverPos));
+            			// remove the science from scienceLocations and store in rover scienceCargo
+            			Science foundScience = mission.scienceLocations.takeScience(roverPos);
+            			rover.scienceCargo.add(foundScience);
+            			mission.corpCollectedScience.get(SwarmServer.getCorpNumber(rover)).add(foundScience);
+            			rover.updateGatherTime(mission.currentTimeMillis());
+            			gathered = true;
+            			System.out.println("SwarmServer: " + mission.name + " corp " + SwarmServer.getCorpNumber(rover) + " total science = " + mission.corpCollectedScience.get(SwarmServer.getCorpNumber(rover)).size());
+            		}
+            	}
+            	if (gathered){
+            		// a failed gather changes no score, and rovers send GATHER every loop
+            		mission.scoreDisplayUpdate();
+            		// the gathered science disappears from the map on the next frame
+            		mission.updateGUIDisplay();
+            	}
+        	} finally {
+        		mission.scienceGatherLock.unlock();
+        	} //END lock
+        	if (gathered){
+        		// tell the subscribed rovers that had this square in scan range
+        		mission.scienceTaken(roverPos, this);
+        	}
+
+
+
+    	/**
+    	 * ******************* CARGO ***********************
+    	 */
+        } else if(input.startsWith("CARGO")) {
+        // Check to see what is in the rovers cargo hold (collected science).
+        	outToRover.println("CARGO"); //returns command header as check
+
+        	// return contents of scienceCargo - in tick mode the simulation thread adds to it
+        	synchronized (rover.scienceCargo){
+        		gson.toJson(rover.scienceCargo, outToRover);
+        	}
+        	outToRover.println();
+
+        	outToRover.println("CARGO_END");
+
+
+
+    	/**
+    	 * ******************* EQUIPMENT ***********************
+    	 */
+        } else if(input.startsWith("EQUIPMENT")) {
+        	ArrayList<String> eqList = new ArrayList<String>();
+
+        	eqList.add(rover.getRoverDrive().toString());
+        	eqList.add(rover.getTool_1().toString());
+        	eqList.add(rover.getTool_2().toString());
+
+        	//System.out.println("SWARM_"+roverNameString+ "_thread: returning work EQUIPMENT");
+        	outToRover.println("EQUIPMENT"); //returns command header as check
+
+        	// return an ArrayList of rover equipment
+        	gson.toJson(eqList, outToRover);
+        	outToRover.println();
+
+        	outToRover.println("EQUIPMENT_END");
+
+
+
+    	/**
+    	 * ******************* RATE ***********************
+    	 */
+        } else if(input.startsWith("RATE")) {
+        	// accepted and throttled request counts for this rover, and the per second budget
+        	outToRover.println("RATE " + limiter.getAccepted() + " " + limiter.getThrottled() + " " + SwarmServer.CALLS_PER_SECOND_LIMIT);
+
+
+
+    	/**
+    	 * **************** SUBSCRIBE / UNSUBSCRIBE ******************
+    	 */
+        // After SUBSCRIBE the server pushes, each on its own line and never inside another response,
+        //   PUSH LOC x y              - the rover moved (sent right after its MOVE)
+        //   PUSH TIMER seconds        - once a second
+        //   PUSH SCIENCE_TAKEN x y    - another rover gathered science inside this rover's scan range
+        // The current LOC and TIMER are pushed straight after SUBSCRIBED so no polling is needed at all.
+        } else if(input.startsWith("UNSUBSCRIBE")) {
+        	subscribed = false;
+        	mission.subscribers.remove(this);
+        	pendingPushes.clear();
+        	outToRover.println("UNSUBSCRIBED");
+
+        } else if(input.startsWith("SUBSCRIBE")) {
+        	outToRover.println("SUBSCRIBED");
+        	if (!subscribed){
+        		subscribed = true;
+        		mission.subscribers.add(this);
+        	}
+        	Coord roverPos = mission.roverLocations.getLocation(rover.getRoverName());
+        	pendingPushes.add("LOC " + roverPos.xpos + " " + roverPos.ypos);
+        	pendingPushes.add("TIMER " + mission.getTimeRemaining());
+
+
+
+    	/**
+    	 * *********** DEFAULT - no recognizable command received ****************
+    	 */
+        } else {
+        	//default response
+        	outToRover.println("");
+        }
+
+        return keepConnection;
+    }
+
+
+    // ########################################################################################################
+    // support methods
+
+
+    // the commands that never write a response, on success or failure
+    static boolean hasNoResponse(String command) {
+    	return command.startsWith("MOVE") || command.startsWith("GATHER");
+    }
+
+
+    // *** SUBSCRIBE ***
+    /**
+     * Queues a "PUSH event" line for a subscribed rover, safe to call from any thread.
+     * If the session is busy with a command the line goes out right after that command's
+     * response, otherwise it is written and flushed here, or on the pushWriter when there is one.
+     */
+    void push(String event) {
+    	if (!subscribed) {
+    		return;
+    	}
+    	pendingPushes.add(event);
+    	if (pushWriter == null) {
+    		writePushes();
+    	} else if (pushWriteScheduled.compareAndSet(false, true)) {
+    		pushWriter.execute(new Runnable() {
+    			public void run() {
+    				pushWriteScheduled.set(false);
+    				writePushes();
+    			}
+    		});
+    	}
+    }
+
+    private void writePushes() {
+    	// tryLock so a pushing thread never waits on a session that is itself waiting on something
+    	while (!pendingPushes.isEmpty() && outputLock.tryLock()) {
+    		try {
+    			writePendingPushes();
+    			outToRover.flush();
+    		} finally {
+    			outputLock.unlock();
+    		}
+    	}
+    }
+
+    // caller holds outputLock
+    private void writePendingPushes() {
+    	String event;
+    	while ((event = pendingPushes.poll()) != null) {
+    		outToRover.println("PUSH " + event);
+    	}
+    }
+
+    boolean isRover(RoverName rname) {
+    	return rover != null && rover.getRoverName() == rname;
+    }
+
+    // true if loc is inside the scan window of this session's rover
+    boolean canSee(Coord loc) {
+    	if (rover == null) {
+    		return false;
+    	}
+    	Coord roverPos = mission.roverLocations.getLocation(rover.getRoverName());
+    	int halfEdge = (getScanRange(rover) - 1) / 2;
+    	return roverPos != null && Math.abs(loc.xpos - roverPos.xpos) <= halfEdge && Math.abs(loc.ypos - roverPos.ypos) <= halfEdge;
+    }
+
+    /**
+     * Called by the front end when the connection goes away.
+     */
+    void close() {
+    	subscribed = false;
+    	if (mission != null) {
+    		mission.subscribers.remove(this);
+    	}
+    }
+
+
+    // *** SCAN ***
+	private ScanMap retriveScanMap(Rover thisRover) {
+		//System.out.println("SWARM: ------ SCAN ------"); //debug test input parsing
+		Coord roverPos = mission.roverLocations.getLocation(thisRover.getRoverName());
+
+		// pass parameters to PlanetMap class to get a subset map of the surrounding area
+		// the caller streams it to the rover as json
+		return mission.planetMap.getScanMap(roverPos, getScanRange(thisRover), mission.roverLocations, mission.scienceLocations, getSensorScienceTypes(thisRover));
+	}
+
+	// *** SCAN (binary) and SCAN_DELTA ***
+	private byte[] retrivePackedScanMap(Rover thisRover) {
+		Coord roverPos = mission.roverLocations.getLocation(thisRover.getRoverName());
+		return mission.planetMap.packScanMap(roverPos, getScanRange(thisRover), mission.roverLocations, mission.scienceLocations, getSensorScienceTypes(thisRover));
+	}
+
+	private int getScanRange(Rover thisRover) {
+		// length of a side of the scan map array !!! must be odd number !!!
+		int scanRange = SwarmServer.STANDARD_SCANMAP_RANGE;
+		// Adjust scanMap range with use of scan range booster
+		if(thisRover.getTool_1() == RoverToolType.RANGE_BOOTER || thisRover.getTool_2() == RoverToolType.RANGE_BOOTER){
+			scanRange = SwarmServer.BOOSTED_SCANMAP_RANGE;
+		}
+		return scanRange;
+	}
+
+	// only the science the rover sensors can see shows up in its scans
+	private EnumSet<Science> getSensorScienceTypes(Rover thisRover) {
+		EnumSet<Science> visible = EnumSet.noneOf(Science.class);
+		Science sensed = thisRover.getTool_1().getSensedScience();
+		if(sensed != Science.NONE){
+			visible.add(sensed);
+		}
+		sensed = thisRover.getTool_2().getSensedScience();
+		if(sensed != Science.NONE){
+			visible.add(sensed);
+		}
+		return visible;
+	}
+}
@@ -0,0 +1,161 @@
+package controlServer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+
+import common.Coord;
+import common.PlanetMap;
+import common.Rover;
+import common.RoverLocations;
+import common.ScienceLocations;
+import enums.RoverName;
+import enums.Science;
+
+/**
+ * Fixed tick simulation of the mission.
+ *
+ * MOVE and GATHER do not change the world when they arrive, they only queue an intent for
+ * the current tick (the last MOVE a rover sends in a tick wins). advance() then resolves all
+ * intents of the tick in one batch, rovers in RoverName order, so a square two rovers want
+ * goes to the lower numbered rover no matter which request reached the server first.
+ * Cooldowns are counted in ticks of TICK_MILLIS simulated milliseconds instead of wall clock
+ * time, and nothing here sleeps - whoever calls advance() decides how fast the mission runs.
+ */
+public class SimulationCore {
+	// simulated milliseconds per tick
+	public static final int TICK_MILLIS = 100;
+	// ticks in a whole mission
+	public static final long MISSION_TICKS = SwarmServer.MAXIMUM_ACTIVITY_TIME_LIMIT / TICK_MILLIS;
+
+	/**
+	 * Told about every change made while a tick is resolved, on the thread calling advance().
+	 */
+	public interface TickListener {
+		void roverMoved(RoverName rname, Coord newPos);
+
+		void scienceGathered(Rover rover, Coord pos, Science science);
+	}
+
+	// a tick far enough back that every cooldown has run out
+	private static final long NEVER = -1000000L;
+
+	private final PlanetMap planetMap;
+	private final RoverLocations roverLocations;
+	private final ScienceLocations scienceLocations;
+	private final ArrayList<ArrayList<Science>> corpCollectedScience;
+	private final TickListener listener;
+
+	private long tick = 0;
+	private final EnumMap<RoverName, Rover> rovers = new EnumMap<RoverName, Rover>(RoverName.class);
+	// intents queued for the current tick, EnumMap and EnumSet iterate in RoverName order
+	private final EnumMap<RoverName, Integer> pendingMoves = new EnumMap<RoverName, Integer>(RoverName.class);
+	private final EnumSet<RoverName> pendingGathers = EnumSet.noneOf(RoverName.class);
+	private final long[] lastMoveTick = new long[RoverName.values().length];
+	private final long[] lastGatherTick = new long[RoverName.values().length];
+
+	public SimulationCore(PlanetMap planetMap, RoverLocations roverLocations, ScienceLocations scienceLocations,
+			ArrayList<ArrayList<Science>> corpCollectedScience, TickListener listener) {
+		this.planetMap = planetMap;
+		this.roverLocations = roverLocations;
+		this.scienceLocations = scienceLocations;
+		this.corpCollectedScience = corpCollectedScience;
+		this.listener = listener;
+		Arrays.fill(lastMoveTick, NEVER);
+		Arrays.fill(lastGatherTick, NEVER);
+	}
+
+	// queues a move for this tick, an unknown direction is ignored
+	public synchronized void submitMove(Rover rover, String dir) {
+		int d = MovementRules.directionIndex(dir);
+		if (d < 0) {
+			return;
+		}
+		rovers.put(rover.getRoverName(), rover);
+		pendingMoves.put(rover.getRoverName(), d);
+	}
+
+	public synchronized void submitGather(Rover rover) {
+		rovers.put(rover.getRoverName(), rover);
+		pendingGathers.add(rover.getRoverName());
+	}
+
+	/**
+	 * Resolves every intent queued for the current tick, then moves on to the next tick.
+	 * Moves go first so a rover that moves and gathers in the same tick gathers at its new square.
+	 */
+	public synchronized void advance() {
+		for (Map.Entry<RoverName, Integer> move : pendingMoves.entrySet()) {
+			resolveMove(rovers.get(move.getKey()), move.getValue());
+		}
+		for (RoverName rname : pendingGathers) {
+			resolveGather(rovers.get(rname));
+		}
+		pendingMoves.clear();
+		pendingGathers.clear();
+		tick++;
+	}
+
+	// runs ticks back to back, as fast as they resolve
+	public void runTicks(long ticks) {
+		for (long i = 0; i < ticks; i++) {
+			advance();
+		}
+	}
+
+	public synchronized long getTick() {
+		return tick;
+	}
+
+	// simulated time since the start of the mission
+	public long getTimeMillis() {
+		return getTick() * TICK_MILLIS;
+	}
+
+	private void resolveMove(Rover rover, int dir) {
+		int r = rover.getRoverName().ordinal();
+		// same rule as doMove: more than "time per square" since the last move
+		if ((tick - lastMoveTick[r]) * TICK_MILLIS <= MovementRules.timePerSquare(rover.getRoverDrive())) {
+			return;
+		}
+		Coord roverPos = roverLocations.getLocation(rover.getRoverName());
+		int xNewPos = roverPos.xpos + MovementRules.DX[dir];
+		int yNewPos = roverPos.ypos + MovementRules.DY[dir];
+		if (xNewPos < 0 || xNewPos >= planetMap.getWidth() || yNewPos < 0 || yNewPos >= planetMap.getHeight()) {
+			return;
+		}
+		if (!MovementRules.canMove(rover.getRoverDrive(), planetMap.terrainAt(roverPos), planetMap.terrainAt(xNewPos, yNewPos))) {
+			return;
+		}
+		Coord newPos = new Coord(xNewPos, yNewPos);
+		if (roverLocations.moveRover(rover.getRoverName(), newPos)) {
+			lastMoveTick[r] = tick;
+			if (listener != null) {
+				listener.roverMoved(rover.getRoverName(), newPos);
+			}
+		}
+	}
+
+	private void resolveGather(Rover rover) {
+		int r = rover.getRoverName().ordinal();
+		if ((tick - lastGatherTick[r]) * TICK_MILLIS <= SwarmServer.GATHER_TIME_PER_TILE) {
+			return;
+		}
+		Coord roverPos = roverLocations.getLocation(rover.getRoverName());
+		if (!scienceLocations.checkLocation(roverPos) || !GatherRules.canGather(rover, planetMap.terrainAt(roverPos))) {
+			return;
+		}
+		Science foundScience = scienceLocations.takeScience(roverPos);
+		// CARGO may be reading the list on the rover's own thread
+		synchronized (rover.scienceCargo) {
+			rover.scienceCargo.add(foundScience);
+		}
+		corpCollectedScience.get(SwarmServer.getCorpNumber(rover)).add(foundScience);
+		lastGatherTick[r] = tick;
+		if (listener != null) {
+			listener.scienceGathered(rover, roverPos, foundScience);
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package controlServer;
+
+/**
+ * Mission time, running timeScale times faster than the wall clock.
+ *
+ * The clock reads the same as System.currentTimeMillis() at the moment it is made and from
+ * then on advances timeScale milliseconds per real millisecond. Timestamps taken from the
+ * wall clock before the mission started (like a new Rover's last move time) are therefore
+ * still in the past on this clock, and every cooldown and the countdown just compare
+ * clock readings as they did before.
+ */
+class VirtualClock {
+	private final double timeScale;
+	private final long epochMillis;
+	private final long epochNanos;
+
+	VirtualClock(double timeScale) {
+		if (!(timeScale > 0)) {
+			throw new IllegalArgumentException("time scale must be positive: " + timeScale);
+		}
+		this.timeScale = timeScale;
+		this.epochMillis = System.currentTimeMillis();
+		// nanoTime so a wall clock adjustment does not jump mission time
+		this.epochNanos = System.nanoTime();
+	}
+
+	long currentTimeMillis() {
+		return epochMillis + (long) ((System.nanoTime() - epochNanos) / 1e6 * timeScale);
+	}
+
+	// how long a span of mission time lasts in real time, at least one millisecond
+	long toRealMillis(long missionMillis) {
+		return Math.max(1, Math.round(missionMillis / timeScale));
+	}
+
+	double getTimeScale() {
+		return timeScale;
+	}
+}
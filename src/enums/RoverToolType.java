@@ -46,4 +46,20 @@ public enum RoverToolType {
     	}	
     	return output;
     }
+    
+    // the science type a sensor tool can detect, NONE for tools that are not science sensors
+    public Science getSensedScience(){
+    	switch(this){
+    	case RADIATION_SENSOR:
+    		return Science.RADIOACTIVE;
+    	case CHEMICAL_SENSOR:
+    		return Science.ORGANIC;
+    	case SPECTRAL_SENSOR:
+    		return Science.CRYSTAL;
+    	case RADAR_SENSOR:
+    		return Science.MINERAL;
+    	default:
+    		return Science.NONE;
+    	}
+    }
 }
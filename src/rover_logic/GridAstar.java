@@ -0,0 +1,237 @@
+package rover_logic;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import common.Coord;
+import common.MapTile;
+import enums.RoverDriveType;
+
+/**
+ * A* over a rectangular grid of cells, each cell an int index (y * width + x).
+ *
+ * Every move costs 1 and the heuristic is the Manhattan distance to the goal, which never
+ * overestimates on a 4-connected grid, so the path found is a shortest one and a cell taken
+ * off the open heap is never reopened. The open set is an IndexedMinHeap with decrease-key,
+ * the g-scores and parents are flat int arrays, and nothing is boxed or hashed.
+ *
+ * A GridAstar is a reusable planner - it owns its scratch arrays and keeps them from one plan
+ * to the next. Instead of clearing them every plan gets a new generation number, and a cell's
+ * g, parent, closed and passable values only count when the cell is stamped with the current
+ * generation. Once the arrays are big enough for the map, replanning makes no garbage.
+ * Not thread safe, give each rover thread its own.
+ */
+public class GridAstar {
+    // neighbors in the order E, W, S, N like SearchLogic.getAdjacentCoordinates
+    static final int[] DX = { 1, -1, 0, 0 };
+    static final int[] DY = { 0, 0, 1, -1 };
+    // moves in the same order, and the step back to the parent for each
+    private static final String[] MOVES = { "E", "W", "S", "N" };
+
+    // big enough for a whole 100x60 map
+    private static final int DEFAULT_CAPACITY = 100 * 60;
+
+    private int capacity;
+    private int generation = 0;
+    // stamped with the generation when g and parent are set, when closed, when passable
+    private int[] seen;
+    private int[] closed;
+    private int[] passable;
+    private int[] g;
+    private int[] parent;
+    private IndexedMinHeap open;
+    private int[] path;
+    private int pathLength = 0;
+
+    // the grid of the current plan
+    private int width;
+    private int height;
+
+    public GridAstar() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public GridAstar(int capacity) {
+        allocate(capacity);
+    }
+
+    /**
+     * Finds a path from start to goal over the passable cells, as a new array of cells with
+     * start first. Makes a planner for the one search, reuse a GridAstar to plan repeatedly.
+     */
+    public static int[] search(boolean[] passable, int width, int height, int start, int goal) {
+        GridAstar planner = new GridAstar(width * height);
+        int length = planner.planGrid(passable, width, height, start, goal);
+        return Arrays.copyOf(planner.path, length);
+    }
+
+    /**
+     * Plans from current to dest over the rover's known map. Tiles not in globalMap, and
+     * tiles the drive can't cross, are not passable. The grid covers every known tile, the
+     * rover and the destination.
+     *
+     * Returns the number of moves, read them with getMove. When dest cannot be reached the
+     * moves lead to the reached tile closest to it.
+     */
+    public int plan(Coord current, Coord dest, RoverDriveType drive, Map<Coord, MapTile> globalMap) {
+        int minX = Math.min(current.xpos, dest.xpos);
+        int maxX = Math.max(current.xpos, dest.xpos);
+        int minY = Math.min(current.ypos, dest.ypos);
+        int maxY = Math.max(current.ypos, dest.ypos);
+        for (Coord c : globalMap.keySet()) {
+            minX = Math.min(minX, c.xpos);
+            maxX = Math.max(maxX, c.xpos);
+            minY = Math.min(minY, c.ypos);
+            maxY = Math.max(maxY, c.ypos);
+        }
+        begin(maxX - minX + 1, maxY - minY + 1);
+
+        for (Map.Entry<Coord, MapTile> entry : globalMap.entrySet()) {
+            MapTile tile = entry.getValue();
+            if (tile != null && SearchLogic.isWalkable(tile, drive)) {
+                Coord c = entry.getKey();
+                passable[(c.ypos - minY) * width + (c.xpos - minX)] = generation;
+            }
+        }
+        run((current.ypos - minY) * width + (current.xpos - minX), (dest.ypos - minY) * width + (dest.xpos - minX));
+        return getMoveCount();
+    }
+
+    /**
+     * Plans over a grid given as one flag per cell. Returns the number of cells on the path,
+     * start included, read them with getPathCell.
+     */
+    public int planGrid(boolean[] passableCells, int gridWidth, int gridHeight, int start, int goal) {
+        begin(gridWidth, gridHeight);
+        for (int cell = 0; cell < gridWidth * gridHeight; cell++) {
+            if (passableCells[cell]) {
+                passable[cell] = generation;
+            }
+        }
+        run(start, goal);
+        return pathLength;
+    }
+
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    public int getPathCell(int i) {
+        return path[i];
+    }
+
+    public int getMoveCount() {
+        return Math.max(0, pathLength - 1);
+    }
+
+    // "N", "E", "S" or "W" - the same String instances every time
+    public String getMove(int i) {
+        int step = path[i + 1] - path[i];
+        if (step == width) {
+            return MOVES[2];
+        } else if (step == -width) {
+            return MOVES[3];
+        } else if (step == 1) {
+            return MOVES[0];
+        }
+        return MOVES[1];
+    }
+
+    public static int manhattan(int x, int y, int toX, int toY) {
+        return Math.abs(x - toX) + Math.abs(y - toY);
+    }
+
+    // f in the high half, h in the low half - of two cells with the same f the one nearer the goal comes first
+    static long priority(int g, int h) {
+        return ((long) (g + h) << 32) | h;
+    }
+
+    // starts a plan on a gridWidth x gridHeight grid, every stamp from earlier plans goes stale
+    private void begin(int gridWidth, int gridHeight) {
+        if (gridWidth * gridHeight > capacity) {
+            allocate(Math.max(gridWidth * gridHeight, capacity * 2));
+        }
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            Arrays.fill(closed, 0);
+            Arrays.fill(passable, 0);
+            generation = 0;
+        }
+        generation++;
+        width = gridWidth;
+        height = gridHeight;
+        pathLength = 0;
+    }
+
+    private void allocate(int newCapacity) {
+        capacity = newCapacity;
+        seen = new int[capacity];
+        closed = new int[capacity];
+        passable = new int[capacity];
+        g = new int[capacity];
+        parent = new int[capacity];
+        path = new int[capacity];
+        open = new IndexedMinHeap(capacity);
+        generation = 0;
+    }
+
+    // the start cell itself does not have to be passable, the rover is standing on it
+    private void run(int start, int goal) {
+        int goalX = goal % width;
+        int goalY = goal / width;
+
+        open.clear();
+        seen[start] = generation;
+        g[start] = 0;
+        parent[start] = -1;
+        int best = start;
+        int bestH = manhattan(start % width, start / width, goalX, goalY);
+        open.offer(start, priority(0, bestH));
+
+        while (!open.isEmpty()) {
+            int u = open.poll();
+            if (u == goal) {
+                best = u;
+                break;
+            }
+            closed[u] = generation;
+            int ux = u % width;
+            int uy = u / width;
+            for (int d = 0; d < 4; d++) {
+                int vx = ux + DX[d];
+                int vy = uy + DY[d];
+                if (vx < 0 || vx >= width || vy < 0 || vy >= height) {
+                    continue;
+                }
+                int v = vy * width + vx;
+                if (closed[v] == generation || passable[v] != generation) {
+                    continue;
+                }
+                int gv = g[u] + 1;
+                if (seen[v] != generation || gv < g[v]) {
+                    seen[v] = generation;
+                    g[v] = gv;
+                    parent[v] = u;
+                    int hv = manhattan(vx, vy, goalX, goalY);
+                    open.offer(v, priority(gv, hv));
+                    if (hv < bestH) {
+                        best = v;
+                        bestH = hv;
+                    }
+                }
+            }
+        }
+        open.clear();
+
+        // path back from best to start, then turned around in place
+        pathLength = 0;
+        for (int cell = best; cell != -1; cell = parent[cell]) {
+            path[pathLength++] = cell;
+        }
+        for (int i = 0, j = pathLength - 1; i < j; i++, j--) {
+            int swap = path[i];
+            path[i] = path[j];
+            path[j] = swap;
+        }
+    }
+}
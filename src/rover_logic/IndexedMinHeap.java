@@ -0,0 +1,115 @@
+package rover_logic;
+
+import java.util.Arrays;
+
+/**
+ * Binary min heap of grid cell indices 0..capacity-1, each in the heap at most once, keyed
+ * on a long priority. The heap position of every cell is tracked so a cell already in the
+ * heap can have its priority lowered in place (decrease-key) instead of being removed and
+ * added again.
+ */
+public class IndexedMinHeap {
+    private final int[] heap;
+    // heap position of each cell, -1 when the cell is not in the heap
+    private final int[] position;
+    private final long[] priority;
+    private int size = 0;
+
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        priority = new long[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int cell) {
+        return position[cell] >= 0;
+    }
+
+    public long priorityOf(int cell) {
+        return priority[cell];
+    }
+
+    // adds the cell, or lowers its priority if it is already in the heap with a higher one
+    public void offer(int cell, long newPriority) {
+        int at = position[cell];
+        if (at < 0) {
+            priority[cell] = newPriority;
+            heap[size] = cell;
+            position[cell] = size;
+            siftUp(size++);
+        } else if (newPriority < priority[cell]) {
+            priority[cell] = newPriority;
+            siftUp(at);
+        }
+    }
+
+    // removes and returns the cell with the lowest priority
+    public int poll() {
+        int top = heap[0];
+        position[top] = -1;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            position[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    // empties the heap, only touches the cells still in it
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int at) {
+        int cell = heap[at];
+        long key = priority[cell];
+        while (at > 0) {
+            int parent = (at - 1) >>> 1;
+            int parentCell = heap[parent];
+            if (priority[parentCell] <= key) {
+                break;
+            }
+            heap[at] = parentCell;
+            position[parentCell] = at;
+            at = parent;
+        }
+        heap[at] = cell;
+        position[cell] = at;
+    }
+
+    private void siftDown(int at) {
+        int cell = heap[at];
+        long key = priority[cell];
+        int half = size >>> 1;
+        while (at < half) {
+            int child = 2 * at + 1;
+            int right = child + 1;
+            if (right < size && priority[heap[right]] < priority[heap[child]]) {
+                child = right;
+            }
+            int childCell = heap[child];
+            if (key <= priority[childCell]) {
+                break;
+            }
+            heap[at] = childCell;
+            position[childCell] = at;
+            at = child;
+        }
+        heap[at] = cell;
+        position[cell] = at;
+    }
+}
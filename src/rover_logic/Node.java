@@ -34,7 +34,7 @@ public class Node implements Comparable<Node> {
 
     @Override
     public int compareTo(Node other) {
-        return (int) Math.ceil(this.data - other.data) * 10;
+        return Double.compare(this.data, other.data);
     }
 
     // only check by its coordinate, not data
@@ -4,13 +4,8 @@ import common.Coord;
 import common.MapTile;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Set;
 
 import enums.RoverDriveType;
 import enums.Terrain;
@@ -19,115 +14,19 @@ import enums.Terrain;
  * Created by samskim on 5/12/16.
  */
 public class SearchLogic {
+    // reused by every Astar call
+    private GridAstar planner;
+
     // ******* Search Methods
 
     public List<String> Astar(Coord current, Coord dest, MapTile[][] scanMapTiles, RoverDriveType drive, Map<Coord, MapTile> globalMap) {
-        PriorityQueue<Node> open = new PriorityQueue<>();
-        Set<Node> closed = new HashSet<>();
-
-        // for back tracing
-        Map<Node, Double> distanceMemory = new HashMap<>();
-        Map<Node, Node> parentMemory = new LinkedHashMap<>();
-
-        open.add(new Node(current, 0));
-        Node destNode = new Node(dest, 0);
-
-        // while there is a node to check in open list
-        Node u = null;
-        while (!open.isEmpty()) {
-
-            u = open.poll(); // poll the closest one
-            closed.add(u); // put it in closed list, to not check anymore
-
-            // if u is destination, break;
-            if (u.getCoord().equals(dest)) {
-                destNode = u;
-                break;
-            }
-
-            for (Coord c : getAdjacentCoordinates(u.getCoord(), scanMapTiles, current)) {
-                // if this node hasn't already been checked
-                if (!closed.contains(new Node(c, 0)) && globalMap.get(c) != null && validateTile(globalMap.get(c), drive)) {
-
-                    // TODO: MAYBE: assess cost depending on the tile's terrain, science, etc
-                    double g = u.getData() + 1; // each move cost is 1, for now
-                    double h = getDistance(c, dest); // distance from neighbor to destination
-                    double f = h + g; // total heuristic of this neighbor c
-                    Node n = new Node(c, f);
-
-                    // for back tracing, store in hashmap
-                    if (distanceMemory.containsKey(n)) {
-
-                        // if distance of this neighboring node is less than memory, update
-                        // else, leave as it is
-                        if (distanceMemory.get(n) > f) {
-                            distanceMemory.put(n, f);
-                            open.remove(n);  // also update from open list
-                            open.add(n);
-                            parentMemory.put(n, u); // add in parent
-                        }
-
-
-                    } else {
-                        // if this neighbor node is new, then add to memory
-                        distanceMemory.put(n, f);
-                        parentMemory.put(n, u);
-                        open.add(n);
-                    }
-
-                }
-
-            }
-
-        }
-
-        List<String> moves = getTrace(destNode, parentMemory);
-        return moves;
-    }
-
-    private List<String> getTrace(Node dest, Map<Node, Node> parents) {
-        Node backTrack = dest;
-        double mindist = Double.MAX_VALUE;
-        for (Node n : parents.keySet()) {
-            if (n.equals(dest)) {
-                backTrack = dest;
-                break;
-            } else {
-                double distance = getDistance(dest.getCoord(), n.getCoord());
-                if (distance < mindist) {
-                    mindist = distance;
-                    backTrack = n;
-                }
-
-            }
+        if (planner == null) {
+            planner = new GridAstar();
         }
-
-        List<String> moves = new ArrayList<>();
-
-        while (backTrack != null) {
-            Node parent = parents.get(backTrack);
-            if (parent != null) {
-                int parentX = parent.getCoord().xpos;
-                int parentY = parent.getCoord().ypos;
-                int currentX = backTrack.getCoord().xpos;
-                int currentY = backTrack.getCoord().ypos;
-                if (currentX == parentX) {
-                    if (parentY < currentY) {
-                        moves.add(0, "S");
-                    } else {
-                        moves.add(0, "N");
-                    }
-
-                } else {
-                    if (parentX < currentX) {
-                        moves.add(0, "E");
-                    } else {
-                        moves.add(0, "W");
-                    }
-                }
-            }
-            backTrack = parent;
-
+        int moveCount = planner.plan(current, dest, drive, globalMap);
+        List<String> moves = new ArrayList<>(moveCount);
+        for (int i = 0; i < moveCount; i++) {
+            moves.add(planner.getMove(i));
         }
         return moves;
     }
@@ -162,6 +61,10 @@ public class SearchLogic {
     }
 
     public boolean validateTile(MapTile maptile, RoverDriveType drive) {
+        return isWalkable(maptile, drive);
+    }
+
+    public static boolean isWalkable(MapTile maptile, RoverDriveType drive) {
 //        System.out.println("hasrover: " + maptile.getHasRover() + ", terrain: " + maptile.getTerrain());
         Terrain terrain = maptile.getTerrain();
         boolean hasRover = maptile.getHasRover();
@@ -0,0 +1,59 @@
+package supportTools;
+
+import java.io.File;
+import java.io.IOException;
+
+import common.BinaryMapFile;
+
+/**
+ * Converts display text maps (Maps/*.txt) to the binary map format (.rmap).
+ * Each map is written next to the text file with the same name and the .rmap extension, then
+ * loaded back and checked against the text map.
+ *
+ *   java supportTools.MapFileConverter [textMapFile ...]
+ * with no arguments every .txt file in the Maps folder is converted
+ */
+public class MapFileConverter {
+
+	public static void main(String[] args) throws IOException {
+		String[] fileNames = args;
+		if (fileNames.length == 0) {
+			File[] maps = new File("Maps").listFiles();
+			if (maps == null) {
+				System.out.println("MapFileConverter: no Maps folder here");
+				return;
+			}
+			fileNames = new String[maps.length];
+			for (int i = 0; i < maps.length; i++) {
+				fileNames[i] = maps[i].getPath();
+			}
+		}
+
+		for (String fileName : fileNames) {
+			if (!fileName.endsWith(".txt")) {
+				continue;
+			}
+			String binaryName = fileName.substring(0, fileName.length() - ".txt".length()) + BinaryMapFile.EXTENSION;
+			try {
+				SwarmMapInit mapInit = new SwarmMapInit();
+				mapInit.parseInputFromDisplayTextFile(fileName);
+				mapInit.saveToBinaryFile(binaryName);
+				SwarmMapInit reloaded = new SwarmMapInit();
+				reloaded.loadFromBinaryFile(binaryName);
+				System.out.println("MapFileConverter: " + fileName + " -> " + binaryName
+						+ " (" + new File(fileName).length() + " -> " + new File(binaryName).length() + " bytes)"
+						+ (sameMap(mapInit, reloaded) ? " round trip ok" : " ROUND TRIP MISMATCH"));
+			} catch (RuntimeException e) {
+				// not every .txt file in Maps is a display text map
+				System.out.println("MapFileConverter: skipped " + fileName + " - " + e);
+			}
+		}
+	}
+
+	// same terrain, science (explicit NONE entries included), rovers, name and positions
+	static boolean sameMap(SwarmMapInit text, SwarmMapInit binary) {
+		return text.getScienceLocations().getHashMapClone().equals(binary.getScienceLocations().getHashMapClone())
+				&& text.getRoverLocations().getHashMapClone().equals(binary.getRoverLocations().getHashMapClone())
+				&& text.makeInitString().equals(binary.makeInitString());
+	}
+}
@@ -1,17 +1,19 @@
 package supportTools;
 
-import java.awt.Color;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import common.Coord;
-import common.MapTile;
 import common.PlanetMap;
 import common.RoverLocations;
 import common.ScienceLocations;
@@ -65,23 +67,27 @@ public class PaintMapUtility {
 
 
 	public void parseInputFromMaintMapFiles(String fileName) throws IOException {
+		long startNanos = System.nanoTime();
 		this.roverLocations = new RoverLocations();
-		this.scienceLocations = new ScienceLocations();
 
 		String terrainMapFileName;
 		String scienceMapFileName;
-		String inputLine;
 		
 		// for keeping track of stats
 		numRock = 0;
 		numSand = 0;
 		numGravel = 0;
 		numSoil = 0;
+		numVoid = 0;
 			
 		numCrystal = 0;
 		numRadioactive = 0;
 		numOrganic = 0;
 		numMineral = 0;
+		Arrays.fill(rockScience, 0);
+		Arrays.fill(soilScience, 0);
+		Arrays.fill(gravelScience, 0);
+		Arrays.fill(sandScience, 0);
 		
 		randomRover = new ArrayList<String>();
 		
@@ -93,168 +99,184 @@ public class PaintMapUtility {
 		
 		Random randomNum = new Random();
 		
-		FileReader inputPaintMapInfo = new FileReader(fileName);
-		BufferedReader bufRead_mapInfo = new BufferedReader(inputPaintMapInfo);
-		
+		BufferedReader bufRead_mapInfo = new BufferedReader(new FileReader(fileName));
+		try {
+			// line 1 - map name
+			this.mapName = bufRead_mapInfo.readLine();
+			System.out.println("MapInit: " + this.mapName);
+
+			// line 2 - map width and height
+			Coord mapSize = extractCoord(bufRead_mapInfo.readLine());
+			this.mapWidth = mapSize.xpos;
+			this.mapHeight = mapSize.ypos;
+			
+			// line 3 - start position (x, y) coordinate
+			Coord startPos = extractCoord(bufRead_mapInfo.readLine());
 
-		
-		
-		
-		String myLine = null;
+			// line 4 - target position x coordinate
+			Coord targetPos = extractCoord(bufRead_mapInfo.readLine());
+			
+			// line 5 - read in terrain map file name
+			terrainMapFileName = bufRead_mapInfo.readLine();
+				
+			// line 6 - read in science map file name
+			scienceMapFileName = bufRead_mapInfo.readLine();
 
-		// line 1 - map name
-		this.mapName = bufRead_mapInfo.readLine();
-		System.out.println("MapInit: " + this.mapName);
+			this.planetMap = new PlanetMap(this.mapWidth, this.mapHeight, startPos, targetPos);
+		} finally {
+			bufRead_mapInfo.close();
+		}
 
-		// line 2 - map width and height
-		Coord mapSize = extractCoord(bufRead_mapInfo.readLine());
-		this.mapWidth = mapSize.xpos;
-		this.mapHeight = mapSize.ypos;
-		
-		// line 3 - start position (x, y) coordinate
-		Coord startPos = extractCoord(bufRead_mapInfo.readLine());
+		// one line of space separated R G B values per map row, after 3 header lines
+		ArrayList<String> terrainRows = readColorRows(terrainMapFileName);
+		ArrayList<String> scienceRows = readColorRows(scienceMapFileName);
+		int rows = Math.min(terrainRows.size(), this.mapHeight);
 
-		// line 4 - target position x coordinate
-		Coord targetPos = extractCoord(bufRead_mapInfo.readLine());
-		
-		// line 5 - read in terrain map file name
-		terrainMapFileName = bufRead_mapInfo.readLine();
-			
-		// line 6 - read in science map file name
-		scienceMapFileName = bufRead_mapInfo.readLine();
-		
-		FileReader inputPaintMapTerrain = new FileReader(terrainMapFileName);
-		BufferedReader bufRead_mapTerrain = new BufferedReader(inputPaintMapTerrain);
-		
-		FileReader inputPaintMapScience = new FileReader(scienceMapFileName);
-		BufferedReader bufRead_mapScience = new BufferedReader(inputPaintMapScience);
-		
-		this.planetMap = new PlanetMap(this.mapWidth, this.mapHeight, startPos, targetPos);
-		
-		double yCount = 0.0;
-		
-		bufRead_mapTerrain.readLine();
-		bufRead_mapTerrain.readLine();
-		bufRead_mapTerrain.readLine();
-		
-		bufRead_mapScience.readLine();
-		bufRead_mapScience.readLine();
-		bufRead_mapScience.readLine();
-		
-		String sciInput = "";
-		int yPos = 0;
-		while ((inputLine = bufRead_mapTerrain.readLine()) != null) { //might consider breaking based on map height check
-			sciInput = bufRead_mapScience.readLine();
-			
-			int spaceIndex = 0;
-			int nextSpaceIndex = inputLine.indexOf(" ", spaceIndex +1);
-			int sciSpaceIndex = 0;
-			int sciNextSpaceIndex = sciInput.indexOf(" ", sciSpaceIndex +1);
-			
+		// the rows are decoded in parallel into per cell letter and rover marker grids
+		char[] terrainLetters = new char[mapWidth * rows];
+		char[] scienceLetters = new char[mapWidth * rows];
+		int[] roverMarkers = new int[mapWidth * rows];
+		ForkJoinPool.commonPool().invoke(new DecodeRows(terrainRows, scienceRows, 0, rows, terrainLetters, scienceLetters, roverMarkers));
+
+		// then applied in row order, so the random rover numbers are handed out as before
+		HashMap<Coord, Science> science = new HashMap<Coord, Science>();
+		for (int yPos = 0; yPos < rows; yPos++) {
 			for (int i = 0; i < mapWidth; i++) {
-				
-				
-				String tempStr;
-				System.out.println("location " + i + " " + yPos + "  \n" );
-				
-				
-				tempStr = inputLine.substring(spaceIndex, nextSpaceIndex);				
-				int R = Integer.parseInt(tempStr);
-				System.out.print("_R_" + tempStr);
-					
-				spaceIndex = nextSpaceIndex +1;
-				nextSpaceIndex = inputLine.indexOf(" ", spaceIndex +1);
-				
-				tempStr = inputLine.substring(spaceIndex, nextSpaceIndex);
-				int G = Integer.parseInt(tempStr);
-				System.out.print("_G_" + tempStr);
-				
-				spaceIndex = nextSpaceIndex +1;
-				nextSpaceIndex = inputLine.indexOf(" ", spaceIndex +1);
-				
-				tempStr = inputLine.substring(spaceIndex, nextSpaceIndex);
-				int B = Integer.parseInt(tempStr);
-				System.out.println("_B_" + tempStr);
-				
-				spaceIndex = nextSpaceIndex +1;
-				nextSpaceIndex = inputLine.indexOf(" ", spaceIndex +1);		
-				
-				String terrainColorToLetter = getLetterFromColor(new Color(R,G,B));
-				
-				if(terrainColorToLetter.equals("N") || terrainColorToLetter.equals("R") || terrainColorToLetter.equals("S")
-													|| terrainColorToLetter.equals("G") || terrainColorToLetter.equals("X")){
-					System.out.println("add to planet " + terrainColorToLetter);
-					planetMap.setTile(new MapTile(terrainColorToLetter), i, yPos);
+				int cell = yPos * mapWidth + i;
+				char terrainColorToLetter = terrainLetters[cell];
+				if (terrainColorToLetter == 'N' || terrainColorToLetter == 'R' || terrainColorToLetter == 'S'
+													|| terrainColorToLetter == 'G' || terrainColorToLetter == 'X'){
+					planetMap.setTerrain(Terrain.getEnum(String.valueOf(terrainColorToLetter)), i, yPos);
 					incrementTerrainCount(terrainColorToLetter);
 				}
-					
-				
-				
-				
-				String sciTempStr;
-				// next location
-				sciTempStr = sciInput.substring(sciSpaceIndex, sciNextSpaceIndex);				
-				int sR = Integer.parseInt(sciTempStr);
-				System.out.print("_sR_" + sciTempStr);
-					
-				sciSpaceIndex = sciNextSpaceIndex +1;
-				sciNextSpaceIndex = sciInput.indexOf(" ", sciSpaceIndex +1);
-				
-				sciTempStr = sciInput.substring(sciSpaceIndex, sciNextSpaceIndex);
-				int sG = Integer.parseInt(sciTempStr);
-				System.out.print("_sG_" + sciTempStr);
-				
-				sciSpaceIndex = sciNextSpaceIndex +1;
-				sciNextSpaceIndex = sciInput.indexOf(" ", sciSpaceIndex +1);
-				
-				sciTempStr = sciInput.substring(sciSpaceIndex, sciNextSpaceIndex);
-				int sB = Integer.parseInt(sciTempStr);
-				System.out.println("_sB_" + sciTempStr);
-				
-				sciSpaceIndex = sciNextSpaceIndex +1;
-				sciNextSpaceIndex = sciInput.indexOf(" ", sciSpaceIndex +1);
-				
-				String scienceColorToLetter = getLetterFromColor(new Color(sR,sG,sB));
-				
-				if(scienceColorToLetter.equals("Y") || scienceColorToLetter.equals("M") || scienceColorToLetter.equals("C") || scienceColorToLetter.equals("O")){
-					System.out.print("add to science " + scienceColorToLetter);
-					scienceLocations.putScience(new Coord(i, yPos), Science.getEnum(scienceColorToLetter));
+
+				char scienceColorToLetter = scienceLetters[cell];
+				if (scienceColorToLetter == 'Y' || scienceColorToLetter == 'M' || scienceColorToLetter == 'C' || scienceColorToLetter == 'O'){
+					science.put(new Coord(i, yPos), Science.getEnum(String.valueOf(scienceColorToLetter)));
 					incrementScienceCounts(scienceColorToLetter, terrainColorToLetter);
 				}
-				
-				
-				if(sR == 100 && sG == 100 && sB>=101 && sB<119 ){
-					System.out.println("Integer.toString(sB) " + (Integer.toString(sB)));
-					System.out.println("Integer.toString(sB) " + (Integer.toString(sB)).substring(1));
+
+				int sB = roverMarkers[cell];
+				if (sB >= 101 && sB < 119) {
 					//String rName = "ROVER_" + Integer.toString(sB).substring(1);
 					int getIndex = randomNum.nextInt(randomRover.size());
 					String rName = "ROVER_" + randomRover.get(getIndex);
 					randomRover.remove(getIndex);
-					System.out.println("found rover= " + rName);
-					
 					roverLocations.putRover(RoverName.getEnum(rName), new Coord(i, yPos));
-				}
-				
-				//setup the sample rovers
-				if(sR == 100 && sG == 100 && (sB==100 || (sB>118 && sB<200)) ){
-					System.out.println("Integer.toString(sB) " + (Integer.toString(sB)));
-					System.out.println("Integer.toString(sB) " + (Integer.toString(sB)).substring(1));
+				} else if (sB == 100 || (sB > 118 && sB < 200)) {
+					//setup the sample rovers
 					String rName = "ROVER_" + Integer.toString(sB).substring(1);
-					System.out.println("found rover= " + rName);
-					
 					roverLocations.putRover(RoverName.getEnum(rName), new Coord(i, yPos));
 				}
-				
-				
-				System.out.println("---------------------------");
 			}
-			yPos++;
 		}
-		printStatistics();
+		this.scienceLocations = new ScienceLocations(science);
+		printStatistics(System.nanoTime() - startNanos);
+	}
+
+	private static ArrayList<String> readColorRows(String fileName) throws IOException {
+		ArrayList<String> rows = new ArrayList<String>();
+		BufferedReader bufRead = new BufferedReader(new FileReader(fileName));
+		try {
+			bufRead.readLine();
+			bufRead.readLine();
+			bufRead.readLine();
+			String inputLine;
+			while ((inputLine = bufRead.readLine()) != null) {
+				rows.add(inputLine);
+			}
+		} finally {
+			bufRead.close();
+		}
+		return rows;
+	}
+
+	/**
+	 * Decodes a block of map rows, splitting in half until the block is small enough.
+	 * Every row only writes its own cells of the grids, so the blocks need no locking.
+	 */
+	private class DecodeRows extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private static final int ROWS_PER_TASK = 16;
+
+		private final ArrayList<String> terrainRows;
+		private final ArrayList<String> scienceRows;
+		private final int firstRow;
+		private final int endRow;
+		private final char[] terrainLetters;
+		private final char[] scienceLetters;
+		private final int[] roverMarkers;
+
+		DecodeRows(ArrayList<String> terrainRows, ArrayList<String> scienceRows, int firstRow, int endRow,
+				char[] terrainLetters, char[] scienceLetters, int[] roverMarkers) {
+			this.terrainRows = terrainRows;
+			this.scienceRows = scienceRows;
+			this.firstRow = firstRow;
+			this.endRow = endRow;
+			this.terrainLetters = terrainLetters;
+			this.scienceLetters = scienceLetters;
+			this.roverMarkers = roverMarkers;
+		}
+
+		@Override
+		protected void compute() {
+			if (endRow - firstRow > ROWS_PER_TASK) {
+				int middle = (firstRow + endRow) >>> 1;
+				invokeAll(new DecodeRows(terrainRows, scienceRows, firstRow, middle, terrainLetters, scienceLetters, roverMarkers),
+						new DecodeRows(terrainRows, scienceRows, middle, endRow, terrainLetters, scienceLetters, roverMarkers));
+				return;
+			}
+			for (int yPos = firstRow; yPos < endRow; yPos++) {
+				ColorReader terrain = new ColorReader(terrainRows.get(yPos));
+				ColorReader science = new ColorReader(scienceRows.get(yPos));
+				for (int i = 0; i < mapWidth; i++) {
+					int cell = yPos * mapWidth + i;
+					terrainLetters[cell] = getLetterFromColor(terrain.nextColor());
+					int sciColor = science.nextColor();
+					scienceLetters[cell] = getLetterFromColor(sciColor);
+					// rover markers are R 100, G 100, the rover number in B
+					roverMarkers[cell] = (sciColor >>> 8) == 0x6464 ? sciColor & 0xff : -1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads R G B triples off one row and packs each into an int (0xRRGGBB), no substrings.
+	 */
+	private static class ColorReader {
+		private final String line;
+		private int pos = 0;
+
+		ColorReader(String line) {
+			this.line = line;
+		}
+
+		int nextColor() {
+			int r = nextInt();
+			int g = nextInt();
+			int b = nextInt();
+			return (r << 16) | (g << 8) | b;
+		}
+
+		private int nextInt() {
+			while (pos < line.length() && line.charAt(pos) == ' ') {
+				pos++;
+			}
+			int start = pos;
+			int value = 0;
+			while (pos < line.length() && line.charAt(pos) >= '0' && line.charAt(pos) <= '9') {
+				value = value * 10 + (line.charAt(pos++) - '0');
+			}
+			if (pos == start || value > 255) {
+				throw new NumberFormatException("expected a color value at column " + start + " of \"" + line + "\"");
+			}
+			return value;
+		}
 	}
 	
 	
-	private void printStatistics() {
+	private void printStatistics(long elapsedNanos) {
 		System.out.println("Map statistics");
 		System.out.println("Soil terrain= " + numSoil);
 		System.out.println("Rock terrain= " + numRock);
@@ -262,106 +284,103 @@ public class PaintMapUtility {
 		System.out.println("Gravel terrain= " + numGravel);
 		System.out.println("Void terrain= " + numVoid);
 		System.out.println("");
+		// columns of the science arrays: 0 Radioactive, 1 Mineral, 2 Organic, 3 Crystal
 		System.out.println("Science     | Rock | Sand | Soil | Gravel");
-		System.out.println("Crystal     |  " + rockScience[0] + "  |  " + sandScience[1] + "  |  " + soilScience[2] + "  |  " + gravelScience[3]);
-		System.out.println("Radioactive |  " + rockScience[0] + "  |  " + sandScience[1] + "  |  " + soilScience[2] + "  |  " + gravelScience[3]);
-		System.out.println("Organic     |  " + rockScience[0] + "  |  " + sandScience[1] + "  |  " + soilScience[2] + "  |  " + gravelScience[3]);
-		System.out.println("Mineral     |  " + rockScience[0] + "  |  " + sandScience[1] + "  |  " + soilScience[2] + "  |  " + gravelScience[3]);
+		System.out.println("Crystal     |  " + rockScience[3] + "  |  " + sandScience[3] + "  |  " + soilScience[3] + "  |  " + gravelScience[3]);
+		System.out.println("Radioactive |  " + rockScience[0] + "  |  " + sandScience[0] + "  |  " + soilScience[0] + "  |  " + gravelScience[0]);
+		System.out.println("Organic     |  " + rockScience[2] + "  |  " + sandScience[2] + "  |  " + soilScience[2] + "  |  " + gravelScience[2]);
+		System.out.println("Mineral     |  " + rockScience[1] + "  |  " + sandScience[1] + "  |  " + soilScience[1] + "  |  " + gravelScience[1]);
 		System.out.println("");
 		System.out.println("Total Cryatal= " + numCrystal);
 		System.out.println("Total Radioactive= " + numRadioactive);
 		System.out.println("Total Organic= " + numOrganic);
 		System.out.println("Total Mineral= " + numMineral);
-		
+		System.out.println("");
+		System.out.println("Rovers= " + roverLocations.getHashMapClone().size());
+		System.out.println("Converted " + mapWidth + "x" + mapHeight + " in " + (elapsedNanos / 1000000) + " ms");
 	}
 
 
-	private void incrementScienceCounts(String scienceColorToLetter, String terrainColorToLetter) {
+	private void incrementScienceCounts(char scienceColorToLetter, char terrainColorToLetter) {
 		int sciIndex = 0;
 		switch(scienceColorToLetter){
-			case "Y": sciIndex = 0; numRadioactive++; break;
-			case "M": sciIndex = 1; numMineral++; break;
-			case "O": sciIndex = 2; numOrganic++; break;
-			case "C": sciIndex = 3; numCrystal++; break;
+			case 'Y': sciIndex = 0; numRadioactive++; break;
+			case 'M': sciIndex = 1; numMineral++; break;
+			case 'O': sciIndex = 2; numOrganic++; break;
+			case 'C': sciIndex = 3; numCrystal++; break;
 		}
 		
 		switch(terrainColorToLetter){
-			case "R":
+			case 'R':
 				rockScience[sciIndex]++;
 				break;
-			case "S":
+			case 'S':
 				sandScience[sciIndex]++;
 				break;
-			case "N":
+			case 'N':
 				soilScience[sciIndex]++;
 				break;
-			case "G":
+			case 'G':
 				gravelScience[sciIndex]++;
 				break;
 		}
 	}
 
 
-	private void incrementTerrainCount(String terrainColorToLetter) {	
+	private void incrementTerrainCount(char terrainColorToLetter) {	
 		switch(terrainColorToLetter){
-			case "R":
+			case 'R':
 				numRock++;
 				break;
-			case "S":
+			case 'S':
 				numSand++;
 				break;
-			case "G":
+			case 'G':
 				numGravel++;
 				break;
-			case "N":
+			case 'N':
 				numSoil++;
 				break;
-			case "X":
+			case 'X':
 				numVoid++;
 				break;
 		}	
 	}
 
 
-	private String getLetterFromColor(Color color){
-		String returnLetter = "";
-		
-		String colorString = color.toString();
-
-		switch (colorString) {
-		case "java.awt.Color[r=0,g=0,b=0]":  //Black=  Void or None or chasm-abyss-fissure-crevasse
-			returnLetter = "X";
-			break;	
-		case "java.awt.Color[r=63,g=72,b=204]": // Blue=  Rock 
-			returnLetter = "R";
-			break;
-		case "java.awt.Color[r=255,g=255,b=255]": // White=  Soil
-			returnLetter = "N";
-			break;
-		case "java.awt.Color[r=255,g=242,b=0]":  // Yellow=  Sand 
-			returnLetter = "S";
-			break;
-		case "java.awt.Color[r=195,g=195,b=195]":  // Lt Grey=  Gravel
-			returnLetter = "G";
-			break;
-		case "java.awt.Color[r=237,g=28,b=36]": // Red=  Radioactive
-			returnLetter = "Y";
-			break;
-		case "java.awt.Color[r=153,g=217,b=234]": // Lt Turquoise=  Crystal
-			returnLetter = "C";
-			break;
-		case "java.awt.Color[r=0,g=162,b=232]": // Turquoise=  Minera
-			returnLetter = "M";
-			break;
-		case "java.awt.Color[r=34,g=177,b=76]": // Green=   Organic
-			returnLetter = "O";
-			break;
-
-		default:
-			returnLetter = "N"; // defaults to soil or no science
-			break;	
+	// packed 0xRRGGBB colors, sorted for binarySearch, and the map letter for each
+	private static final int[] PAINT_COLORS;
+	private static final char[] PAINT_LETTERS;
+
+	static {
+		int[][] colorLetters = {
+			{ 0x000000, 'X' }, // Black=  Void or None or chasm-abyss-fissure-crevasse
+			{ 0x3F48CC, 'R' }, // Blue=  Rock
+			{ 0xFFFFFF, 'N' }, // White=  Soil
+			{ 0xFFF200, 'S' }, // Yellow=  Sand
+			{ 0xC3C3C3, 'G' }, // Lt Grey=  Gravel
+			{ 0xED1C24, 'Y' }, // Red=  Radioactive
+			{ 0x99D9EA, 'C' }, // Lt Turquoise=  Crystal
+			{ 0x00A2E8, 'M' }, // Turquoise=  Minera
+			{ 0x22B14C, 'O' }, // Green=   Organic
+		};
+		Arrays.sort(colorLetters, new Comparator<int[]>() {
+			public int compare(int[] a, int[] b) {
+				return Integer.compare(a[0], b[0]);
+			}
+		});
+		PAINT_COLORS = new int[colorLetters.length];
+		PAINT_LETTERS = new char[colorLetters.length];
+		for (int i = 0; i < colorLetters.length; i++) {
+			PAINT_COLORS[i] = colorLetters[i][0];
+			PAINT_LETTERS[i] = (char) colorLetters[i][1];
 		}
-		return returnLetter;
+	}
+
+	private static char getLetterFromColor(int rgb){
+		int found = Arrays.binarySearch(PAINT_COLORS, rgb);
+		// defaults to soil or no science
+		return found >= 0 ? PAINT_LETTERS[found] : 'N';
 	}
 	
 	public static Coord extractCoord(String inputString) {
@@ -430,16 +449,16 @@ public class PaintMapUtility {
 			printMap.append("| " + rowCount++ + "\n"); // Print row numbers at end of row
 			for (int k = 0; k < mapWidth; k++) {
 				Coord tcor = new Coord(k, j);
-				if (planetMap.getTile(tcor).getTerrain() != Terrain.SOIL) {
+				if (planetMap.terrainAt(tcor) != Terrain.SOIL) {
 					printMap.append("|");
-					printMap.append(planetMap.getTile(tcor).getTerrain().getTerString());
+					printMap.append(planetMap.terrainAt(tcor).getTerString());
 					if (scienceLocations.checkLocation(tcor)) {
 						printMap.append(scienceLocations.scanLocation(tcor).getSciString());
 					} else {
 						printMap.append("_");
 					}
 
-				} else if (planetMap.getTile(tcor).getTerrain() == Terrain.SOIL) {
+				} else if (planetMap.terrainAt(tcor) == Terrain.SOIL) {
 					printMap.append("|_");
 					if (scienceLocations.checkLocation(tcor)) {
 						printMap.append(scienceLocations.scanLocation(tcor).getSciString());
@@ -1,11 +1,18 @@
 package supportTools;
 
-import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.json.simple.JSONObject;
 
@@ -13,8 +20,8 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
 
+import common.BinaryMapFile;
 import common.Coord;
-import common.MapTile;
 import common.PlanetMap;
 import common.RoverLocations;
 import common.ScienceLocations;
@@ -120,97 +127,187 @@ public class SwarmMapInit {
 		return scienceLocations;
 	}
 
+	// loads a binary (.rmap) or display text map depending on the file extension
+	public void loadMapFile(String fileName) throws IOException {
+		if (fileName.endsWith(BinaryMapFile.EXTENSION)) {
+			loadFromBinaryFile(fileName);
+		} else {
+			parseInputFromDisplayTextFile(fileName);
+		}
+	}
+
+	public void loadFromBinaryFile(String fileName) throws IOException {
+		BinaryMapFile mapFile = BinaryMapFile.open(fileName);
+		this.mapName = mapFile.getMapName();
+		System.out.println("MapInit: " + this.mapName);
+		this.mapWidth = mapFile.getWidth();
+		this.mapHeight = mapFile.getHeight();
+		this.planetMap = mapFile.readPlanetMap();
+		this.roverLocations = mapFile.readRoverLocations();
+		this.scienceLocations = mapFile.readScienceLocations();
+		this.startPosCoord = mapFile.getStartPosition();
+		this.targetPosCoord = mapFile.getTargetPosition();
+	}
+
+	public void saveToBinaryFile(String fileName) throws IOException {
+		BinaryMapFile.write(fileName, mapName, planetMap, roverLocations, scienceLocations);
+	}
+
 	public void parseInputFromDisplayTextFile(String fileName) throws IOException {
-		this.roverLocations = new RoverLocations();
-		this.scienceLocations = new ScienceLocations();
+		// the whole file is decoded into one CharBuffer and parsed in a single pass
+		CharBuffer text;
+		RandomAccessFile file = new RandomAccessFile(fileName, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			text = StandardCharsets.UTF_8.decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} finally {
+			file.close();
+		}
+		parseDisplayText(text);
+	}
 
-		FileReader input = new FileReader(fileName);
-		BufferedReader bufRead = new BufferedReader(input);
-		String myLine = null;
+	/**
+	 * Parses a map in the display text format.
+	 *
+	 * After the 7 header lines every map row is two text lines, the rover line and the terrain
+	 * line, with 3 characters per cell ("|" and two characters). Cells are decoded straight from
+	 * the buffer by character code and written into the packed PlanetMap store - no String or
+	 * MapTile is made per cell, only a Coord for each rover and science square.
+	 */
+	public void parseDisplayText(CharBuffer text) {
+		this.roverLocations = new RoverLocations();
+		// collected here and indexed once at the end, not one putScience at a time
+		HashMap<Coord, Science> science = new HashMap<Coord, Science>();
 
 		// line 1 - map name
-		this.mapName = bufRead.readLine();
+		this.mapName = readLine(text);
 		System.out.println("MapInit: " + this.mapName);
 
 		// line 2 - map width and height
-		Coord mapSize = extractCoord(bufRead.readLine());
+		Coord mapSize = extractCoord(readLine(text));
 		this.mapWidth = mapSize.xpos;
 		this.mapHeight = mapSize.ypos;
-		
+
 		// line 3 - start position (x, y) coordinate
-		Coord startPos = extractCoord(bufRead.readLine());
+		Coord startPos = extractCoord(readLine(text));
 
 		// line 4 - target position x coordinate
-		Coord targetPos = extractCoord(bufRead.readLine());
-		
+		Coord targetPos = extractCoord(readLine(text));
+
 		// line 5 - skip past the map letter key
-		bufRead.readLine();
-		
 		// line 6 - skip past the column number lines
-		bufRead.readLine();
-		
 		// line 7 - skip past the top row of underline characters
-		bufRead.readLine();
-		
+		skipLine(text);
+		skipLine(text);
+		skipLine(text);
+
 		this.planetMap = new PlanetMap(this.mapWidth, this.mapHeight, startPos, targetPos);
-		
-		double yCount = 0.0;
-		
-		
-		while ((myLine = bufRead.readLine()) != null) { //might consider breaking based on map height check
-			int yPos = (int) yCount;
+
+		// two text lines per map row - line >> 1 is the row
+		for (int line = 0; line < mapHeight * 2 && text.hasRemaining(); line++) {
+			int yPos = line >> 1;
+			int lineStart = text.position();
+			int lineEnd = skipLine(text);
 
 			for (int i = 0; i < mapWidth; i++) {
-				// grab the 2nd and 3rd character in a 3 character block based on i
-				String tstr = myLine.substring(i * 3 + 1, i * 3 + 3);
-				if (isInteger(tstr)) {
-					String rName = "ROVER_" + tstr;
-					
-					roverLocations.putRover(RoverName.getEnum(rName), new Coord(i, yPos));
-				} else if (tstr.startsWith("__") || tstr.startsWith("  ")) {
+				// the 2nd and 3rd character in a 3 character block based on i
+				int at = lineStart + i * 3 + 1;
+				if (at + 1 >= lineEnd) {
+					break;
+				}
+				char first = text.get(at);
+				char second = text.get(at + 1);
+
+				if (isDigit(first) && isDigit(second)) {
+					roverLocations.putRover(ROVER_BY_NUMBER[(first - '0') * 10 + (second - '0')], new Coord(i, yPos));
+				} else if ((first == '_' && second == '_') || (first == ' ' && second == ' ')) {
 					// do nothing
-					
 				} else {
-					String posOne = tstr.substring(0, 1);
-					if (!posOne.equals("_")) {
-						
-						planetMap.setTile(new MapTile(posOne), i, yPos);
-					} else {
-						
-						planetMap.setTile(new MapTile("N"), i, yPos);
-					}
-
-					String posTwo = tstr.substring(1, 2);
-					if (!posTwo.equals("_")) {
-						
-						scienceLocations.putScience(new Coord(i, yPos), Science.getEnum(posTwo));
-					} else {
-						// do nothing
+					// "_" in the terrain position is soil
+					planetMap.setTerrain(first == '_' ? Terrain.SOIL : terrainFor(first), i, yPos);
+					if (second != '_') {
+						science.put(new Coord(i, yPos), scienceFor(second));
 					}
 				}
 			}
-			
-			yCount += 0.5;
 		}
+		this.scienceLocations = new ScienceLocations(science);
+	}
+
+	// lookup tables built from the enum getEnum methods so the letters mean exactly the same here
+	private static final Terrain[] TERRAIN_BY_CHAR = new Terrain[128];
+	private static final Science[] SCIENCE_BY_CHAR = new Science[128];
+	private static final RoverName[] ROVER_BY_NUMBER = new RoverName[100];
+
+	static {
+		for (char c = 0; c < 128; c++) {
+			TERRAIN_BY_CHAR[c] = Terrain.getEnum(String.valueOf(c));
+			SCIENCE_BY_CHAR[c] = Science.getEnum(String.valueOf(c));
+		}
+		for (int n = 0; n < 100; n++) {
+			ROVER_BY_NUMBER[n] = RoverName.getEnum("ROVER_" + (n < 10 ? "0" : "") + n);
+		}
+	}
+
+	private static Terrain terrainFor(char c) {
+		return c < 128 ? TERRAIN_BY_CHAR[c] : Terrain.getEnum(String.valueOf(c));
+	}
+
+	private static Science scienceFor(char c) {
+		return c < 128 ? SCIENCE_BY_CHAR[c] : Science.getEnum(String.valueOf(c));
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	// moves past the next line break, returns where the line ends without any \r
+	private static int skipLine(CharBuffer text) {
+		int start = text.position();
+		int limit = text.limit();
+		int end = start;
+		while (end < limit && text.get(end) != '\n') {
+			end++;
+		}
+		text.position(end < limit ? end + 1 : limit);
+		if (end > start && text.get(end - 1) == '\r') {
+			end--;
+		}
+		return end;
+	}
+
+	// header lines only, a null at the end of the text like BufferedReader
+	private static String readLine(CharBuffer text) {
+		if (!text.hasRemaining()) {
+			return null;
+		}
+		int start = text.position();
+		int end = skipLine(text);
+		return text.duplicate().position(start).limit(end).toString();
 	}
 
 	
 	public void printToDisplayTextFile() {	
-		String printMapString = makeInitString();		
-		System.out.println("MapInit: " + printMapString);
+		System.out.print("MapInit: ");
+		try {
+			Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+			writeDisplayText(out);
+			out.flush();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		System.out.println();
 	}
 
 	
 	public void saveToDisplayTextFile(String fileName) throws IOException {		
-		String printMapString = makeInitString();
-		
 		try {
-			File file = new File(fileName);
-			FileWriter fileWriter = new FileWriter(file);
-			fileWriter.write(printMapString);
-	
-			fileWriter.flush();
-			fileWriter.close();
+			Writer out = new BufferedWriter(new FileWriter(new File(fileName)));
+			try {
+				writeDisplayText(out);
+			} finally {
+				out.close();
+			}
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -218,75 +315,104 @@ public class SwarmMapInit {
 	
 	
 	public String makeInitString(){
-		StringBuilder printMap = new StringBuilder();
-		printMap.append(this.mapName + "\n");
-		printMap.append(this.planetMap.getWidth() + " " 
+		StringWriter printMap = new StringWriter();
+		try {
+			writeDisplayText(printMap);
+		} catch (IOException e) {
+			// a StringWriter does not throw
+			throw new IllegalStateException(e);
+		}
+		return printMap.toString();
+	}
+
+	/**
+	 * Writes the map in the display text format, the same text parseDisplayText reads.
+	 *
+	 * The rover and science locations are laid out in flat width * height grids first, one
+	 * pass over each, so every cell is a pair of array reads instead of a search of the rover
+	 * list. Each text line is filled into one reused char buffer and written in a single call;
+	 * give it a buffered Writer.
+	 */
+	public void writeDisplayText(Writer out) throws IOException {
+		RoverName[] roverGrid = new RoverName[mapWidth * mapHeight];
+		for (Map.Entry<RoverName, Coord> entry : roverLocations.getHashMapClone().entrySet()) {
+			Coord loc = entry.getValue();
+			if (loc.xpos >= 0 && loc.xpos < mapWidth && loc.ypos >= 0 && loc.ypos < mapHeight) {
+				roverGrid[loc.ypos * mapWidth + loc.xpos] = entry.getKey();
+			}
+		}
+		Science[] scienceGrid = new Science[mapWidth * mapHeight];
+		for (Map.Entry<Coord, Science> entry : scienceLocations.getHashMapClone().entrySet()) {
+			Coord loc = entry.getKey();
+			if (loc.xpos >= 0 && loc.xpos < mapWidth && loc.ypos >= 0 && loc.ypos < mapHeight) {
+				scienceGrid[loc.ypos * mapWidth + loc.xpos] = entry.getValue();
+			}
+		}
+
+		out.write(this.mapName + "\n");
+		out.write(this.planetMap.getWidth() + " " 
 							+ this.planetMap.getHeight() + " Map_Width_Height\n");
-		printMap.append(planetMap.getStartPosition().xpos + " " 
+		out.write(planetMap.getStartPosition().xpos + " " 
 							+ planetMap.getStartPosition().ypos + " StartPosition(x,y)\n");
-		printMap.append(planetMap.getTargetPosition().xpos + " " 
+		out.write(planetMap.getTargetPosition().xpos + " " 
 							+ planetMap.getTargetPosition().ypos + " TargetPosition(x,y)\n");
 		
-		printMap.append("KEY:<Terrain> R = Rock; G = Gravel; S = Sand; X = abyss;  <Science> Y = Radioactive; C = Crystal; M = Mineral; O = Organic; <Rover> ##\n");
+		out.write("KEY:<Terrain> R = Rock; G = Gravel; S = Sand; X = abyss;  <Science> Y = Radioactive; C = Crystal; M = Mineral; O = Organic; <Rover> ##\n");
 		
 		// print column numbers
-		printMap.append(" "); // shift right one space
+		out.write(" "); // shift right one space
 		for (int i = 0; i < mapWidth; i++) {
-			printMap.append(i + " ");
+			out.write(Integer.toString(i));
 			// set spacing on number of digits in column number
-			if(i < 10){
-				printMap.append(" ");
-			}
+			out.write(i < 10 ? "  " : " ");
 		}
-		printMap.append("\n");
+		out.write("\n");
 		
+		// 3 characters per cell, then "|", the row number and the line end
+		char[] line = new char[mapWidth * 3 + 16];
+
 		// draw top row of lines
-		int rowCount = 0;
+		int n = 0;
 		for (int h = 0; h < mapWidth; h++) {
-			printMap.append(" __");
+			line[n++] = ' ';
+			line[n++] = '_';
+			line[n++] = '_';
 		}
-		printMap.append("\n");
+		line[n++] = '\n';
+		out.write(line, 0, n);
 		
 		for (int j = 0; j < mapHeight; j++) {
+			int rowStart = j * mapWidth;
+			n = 0;
 			for (int i = 0; i < mapWidth; i++) {
 				// check for rover
-				if (roverLocations.containsCoord(new Coord(i, j))) {
-					String rNum = roverLocations.getName(new Coord(i, j)).toString();
-					printMap.append("|" + rNum.substring(6));
+				RoverName rover = roverGrid[rowStart + i];
+				line[n++] = '|';
+				if (rover != null) {
+					String rNum = rover.toString();
+					line[n++] = rNum.charAt(6);
+					line[n++] = rNum.charAt(7);
 				} else {
-					printMap.append("|  ");
+					line[n++] = ' ';
+					line[n++] = ' ';
 				}
 			}
-			printMap.append("| " + rowCount++ + "\n"); // Print row numbers at end of row
-			for (int k = 0; k < mapWidth; k++) {
-				Coord tcor = new Coord(k, j);
-				if (planetMap.getTile(tcor).getTerrain() != Terrain.SOIL) {
-					printMap.append("|");
-					printMap.append(planetMap.getTile(tcor).getTerrain().getTerString());
-					if (scienceLocations.checkLocation(tcor)) {
-						printMap.append(scienceLocations.scanLocation(tcor).getSciString());
-					} else {
-						printMap.append("_");
-					}
+			out.write(line, 0, n);
+			out.write("| " + j + "\n"); // Print row numbers at end of row
 
-				} else if (planetMap.getTile(tcor).getTerrain() == Terrain.SOIL) {
-					printMap.append("|_");
-					if (scienceLocations.checkLocation(tcor)) {
-						printMap.append(scienceLocations.scanLocation(tcor).getSciString());
-					} else {
-						printMap.append("_");
-					}
-
-				} else {
-
-					printMap.append("|__");
-				}
+			n = 0;
+			for (int k = 0; k < mapWidth; k++) {
+				Terrain ter = planetMap.terrainAt(k, j);
+				Science sci = scienceGrid[rowStart + k];
+				line[n++] = '|';
+				// soil is drawn as "_"
+				line[n++] = ter == Terrain.SOIL ? '_' : ter.getTerString().charAt(0);
+				line[n++] = sci != null ? sci.getSciString().charAt(0) : '_';
 			}
-			printMap.append("|\n");
+			line[n++] = '|';
+			line[n++] = '\n';
+			out.write(line, 0, n);
 		}
-
-		String printMapString = printMap.toString();
-		return printMapString;
 	}
 	
 	public static Coord extractCoord(String inputString) {
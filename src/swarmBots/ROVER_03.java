@@ -7,6 +7,7 @@ import java.io.PrintWriter;
 import java.lang.reflect.Type;
 import java.net.Socket;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Random;
 
@@ -17,6 +18,7 @@ import com.google.gson.reflect.TypeToken;
 import common.Coord;
 import common.MapTile;
 import common.ScanMap;
+import common.ScanMapCodec;
 import enums.Terrain;
 
 /**
@@ -31,6 +33,11 @@ public class ROVER_03 {
 	PrintWriter out;
 	String rovername;
 	ScanMap scanMap;
+	boolean binaryScan = false;
+	// set when the server accepts SUBSCRIBE - LOC and TIMER then arrive as PUSH lines
+	boolean subscribed = false;
+	Coord pushedLoc = null;
+	String pushedTimer = null;
 	int sleepTime;
 	String SERVER_ADDRESS = "localhost";
 	static final int PORT_ADDRESS = 9537;
@@ -67,8 +74,9 @@ public class ROVER_03 {
 			
 			// Process all messages from server, wait until server requests Rover ID
 			// name - Return Rover Name to complete connection
+			String line = "";
 			while (true) {
-				String line = in.readLine();
+				line = in.readLine();
 				if (line.startsWith("SUBMITNAME")) {
 					out.println(rovername); // This sets the name of this instance
 											// of a swarmBot for identifying the
@@ -76,10 +84,14 @@ public class ROVER_03 {
 					break;
 				}
 			}
+			
+			// ask the server for packed binary SCAN responses instead of json
+			out.println("SCAN_FORMAT BINARY");
+			line = in.readLine();
+			binaryScan = line != null && line.equals("SCAN_FORMAT BINARY");
 	
 			// ********* Rover logic setup *********
 			
-			String line = "";
 			Coord rovergroupStartPosition = null;
 			Coord targetLocation = null;
 			
@@ -116,6 +128,13 @@ public class ROVER_03 {
 			}
 			System.out.println(rovername + " TARGET_LOC " + targetLocation);
 			
+			// **** have location and timer pushed instead of polling for them ****
+			// an older server answers with an empty line and the rover keeps polling
+			out.println("SUBSCRIBE");
+			line = readResponse();
+			subscribed = line != null && line.equals("SUBSCRIBED");
+			System.out.println(rovername + " subscribed " + subscribed);
+			
 			//movement logic?
 			moveAround(line);
 		
@@ -205,41 +224,68 @@ public class ROVER_03 {
 			 *  ####  Rover controller process loop  ####
 			 */
 			while (true) {			
-				// **** Request Rover Location from SwarmServer ****
-				out.println("LOC");
-				line = in.readLine();
-	            if (line == null) {
-	            	System.out.println(rovername + " check connection to server");
-	            	line = "";
-	            }
-				if (line.startsWith("LOC")) {
-					// loc = line.substring(4);
-					currentLoc = extractLocationFromString(line);
-					
+				// **** Request Rover Location, SCAN and TIMER from SwarmServer ****
+				// all three requests go out before any reply is read - the server answers them
+				// in order, so the loop waits for one round trip instead of three.
+				// When subscribed only the SCAN is requested, location and timer are pushed.
+				if (!subscribed) {
+					out.println("LOC");
+				}
+				requestScan();
+				if (!subscribed) {
+					out.println("TIMER");
+					line = readResponse();
+		            if (line == null) {
+		            	System.out.println(rovername + " check connection to server");
+		            	line = "";
+		            }
+					if (line.startsWith("LOC")) {
+						// loc = line.substring(4);
+						currentLoc = extractLocationFromString(line);
+						
+					}
 				}
-				System.out.println(rovername + " currentLoc at start: " + currentLoc);
-				
-				// after getting location set previous equal current to be able to check for stuckness and blocked later
-				previousLoc = currentLoc;		
-				
 	
 				// ***** do a SCAN *****
 
 				// gets the scanMap from the server based on the Rover current location
-				doScan(); 
+				// any PUSH LOC for the last MOVE is read on the way, it always comes before this reply
+				readScanResponse(); 
+				if (subscribed) {
+					currentLoc = pushedLoc;
+				}
+				System.out.println(rovername + " currentLoc at start: " + currentLoc);
+				
+				// test for stuckness - did the last MOVE change the location - if stuck for too long try switching positions
+				if (previousLoc != null) {
+					stuck = currentLoc != null && currentLoc.equals(previousLoc);
+					if(stuck)
+						stuckCount +=1;
+					else
+						stuckCount = 0;
+					if(stuckCount >= 10)
+						currentDirection = getRandom(cardinals.length);
+				}
+				
+				// after getting location set previous equal current to be able to check for stuckness next time around
+				previousLoc = currentLoc;		
+				
 				// prints the scanMap to the Console output for debug purposes
 				scanMap.debugPrintMap();
 				
 				// ***** get TIMER remaining *****
-				out.println("TIMER");
-				line = in.readLine();
-	            if (line == null) {
-	            	System.out.println(rovername + " check connection to server");
-	            	line = "";
-	            }
-				if (line.startsWith("TIMER")) {
-					String timeRemaining = line.substring(6);
-					System.out.println(rovername + " timeRemaining: " + timeRemaining);
+				if (subscribed) {
+					System.out.println(rovername + " timeRemaining: " + pushedTimer);
+				} else {
+					line = readResponse();
+		            if (line == null) {
+		            	System.out.println(rovername + " check connection to server");
+		            	line = "";
+		            }
+					if (line.startsWith("TIMER")) {
+						String timeRemaining = line.substring(6);
+						System.out.println(rovername + " timeRemaining: " + timeRemaining);
+					}
 				}
 				
 				
@@ -304,28 +350,8 @@ public class ROVER_03 {
 					
 				}
 	
-				// another call for current location
-				out.println("LOC");
-				line = in.readLine();
-				if(line == null){
-					System.out.println("ROVER_03 check connection to server");
-					line = "";
-				}
-				if (line.startsWith("LOC")) {
-					currentLoc = extractLocationFromString(line);
-					
-				}
-	
+				// no second LOC here, whether the MOVE worked is checked at the top of the next loop
 	
-				// test for stuckness - if stuck for too long try switching positions
-				stuck = currentLoc.equals(previousLoc);
-				if(stuck)
-					stuckCount +=1;
-				else
-					stuckCount = 0;
-				if(stuckCount >= 10)
-					currentDirection = getRandom(cardinals.length);
-				
 				//System.out.println("ROVER_03 stuck test " + stuck);
 				System.out.println("ROVER_03 blocked test " + blocked);
 	
@@ -392,13 +418,22 @@ public class ROVER_03 {
 	// sends a SCAN request to the server and puts the result in the scanMap array
 	public void doScan() throws IOException {
 		//System.out.println("ROVER_03 method doScan()");
+		requestScan();
+		readScanResponse();
+	}
+
+	private void requestScan() {
+		// with the binary format negotiated only the changed tiles are requested
+		out.println(binaryScan ? "SCAN_DELTA" : "SCAN");
+	}
+
+	// reads the reply to a SCAN or SCAN_DELTA that has already been sent
+	private void readScanResponse() throws IOException {
 		Gson gson = new GsonBuilder()
     			.setPrettyPrinting()
     			.enableComplexMapKeySerialization()
     			.create();
-		out.println("SCAN");
-
-		String jsonScanMapIn = in.readLine(); //grabs the string that was returned first
+		String jsonScanMapIn = readResponse(); //grabs the string that was returned first
 		if(jsonScanMapIn == null){
 			System.out.println("ROVER_03 check connection to server");
 			jsonScanMapIn = "";
@@ -414,8 +449,8 @@ public class ROVER_03 {
 				//System.out.println("ROVER_03 doScan() bottom of while");
 			}
 		} else {
-			// in case the server call gives unexpected results
-			clearReadLineBuffer();
+			// in case the server call gives unexpected results (THROTTLED is a single line)
+			// the buffer is not cleared here, it may hold the replies to pipelined requests
 			return; // server response did not start with "SCAN"
 		}
 		//System.out.println("ROVER_03 finished scan while");
@@ -425,8 +460,36 @@ public class ROVER_03 {
 		//new MyWriter( jsonScanMapString, 0);  //gives a strange result - prints the \n instead of newline character in the file
 
 		//System.out.println("ROVER_03 convert from json back to ScanMap class");
-		// convert from the json string back to a ScanMap object
-		scanMap = gson.fromJson(jsonScanMapString, ScanMap.class);		
+		if (binaryScan) {
+			// a FULL packed window, or a DELTA applied on top of the window we already have
+			String body = jsonScanMapString.trim();
+			byte[] packed = Base64.getDecoder().decode(body.substring(body.indexOf(" ") + 1));
+			if (body.startsWith("DELTA") && scanMap != null) {
+				scanMap = ScanMapCodec.applyDelta(scanMap, packed);
+			} else {
+				scanMap = ScanMapCodec.decode(packed);
+			}
+		} else {
+			// convert from the json string back to a ScanMap object
+			scanMap = gson.fromJson(jsonScanMapString, ScanMap.class);
+		}
+	}
+	
+
+	// reads the next response line, PUSH lines in front of it are taken in along the way
+	private String readResponse() throws IOException {
+		String line = in.readLine();
+		while (line != null && line.startsWith("PUSH ")) {
+			if (line.startsWith("PUSH LOC")) {
+				pushedLoc = extractLocationFromString(line.substring(5));
+			} else if (line.startsWith("PUSH TIMER")) {
+				pushedTimer = line.substring(11);
+			} else if (line.startsWith("PUSH SCIENCE_TAKEN")) {
+				System.out.println(rovername + " science taken at " + extractLocationFromString(line.substring(5)));
+			}
+			line = in.readLine();
+		}
+		return line;
 	}
 	
 
@@ -8,6 +8,7 @@ import common.Communication;
 import common.Coord;
 import common.MapTile;
 import common.ScanMap;
+import common.ScanMapCodec;
 
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -26,6 +27,7 @@ import java.util.concurrent.TimeUnit;
 import enums.RoverDriveType;
 import enums.Science;
 import enums.Terrain;
+import rover_logic.GridAstar;
 import rover_logic.SearchLogic;
 import supportTools.CommunicationHelper;
 
@@ -38,6 +40,7 @@ public class ROVER_11 {
     PrintWriter out;
     String rovername;
     ScanMap scanMap;
+    boolean binaryScan = false;
     int sleepTime;
     String SERVER_ADDRESS = "localhost";
     static final int PORT_ADDRESS = 9537;
@@ -94,9 +97,13 @@ public class ROVER_11 {
             }
         }
 
+        // ask the server for packed binary SCAN responses instead of json
+        out.println("SCAN_FORMAT BINARY");
+        String line = in.readLine();
+        binaryScan = line != null && line.equals("SCAN_FORMAT BINARY");
+
         // ******** Rover logic *********
         // int cnt=0;
-        String line = "";
 
         boolean goingSouth = false;
         boolean stuck = false; // just means it did not change locations between requests,
@@ -147,6 +154,8 @@ public class ROVER_11 {
         // TODO: Sort destination depending on current Location
 
         SearchLogic search = new SearchLogic();
+        // one planner for the whole run, its scratch arrays are reused by every replan
+        GridAstar planner = new GridAstar();
 
         // ******** define Communication
 //        String url = "http://192.168.1.104:3000/api";
@@ -256,14 +265,14 @@ public class ROVER_11 {
                 out.println("GATHER");
 
             } else {
-                List<String> moves = search.Astar(currentLoc, destination, scanMapTiles, RoverDriveType.WALKER, globalMap);
+                int moveCount = planner.plan(currentLoc, destination, RoverDriveType.WALKER, globalMap);
                 System.out.println(rovername + "currentLoc: " + currentLoc + ", destination: " + destination);
-                System.out.println(rovername + " moves: " + moves.toString());
+                System.out.println(rovername + " moves: " + moveCount + (moveCount > 0 ? " next " + planner.getMove(0) : ""));
 //
 
                 // if STILL MOVING
-                if (!moves.isEmpty()) {
-                    out.println("MOVE " + moves.get(0));
+                if (moveCount > 0) {
+                    out.println("MOVE " + planner.getMove(0));
 
                     // if rover is next to the target
                     // System.out.println("Rover near destiation. distance: " + getDistance(currentLoc, destination));
@@ -514,8 +523,13 @@ public class ROVER_11 {
         //new MyWriter( jsonScanMapString, 0);  //gives a strange result - prints the \n instead of newline character in the file
 
         //System.out.println("ROVER_11 convert from json back to ScanMap class");
-        // convert from the json string back to a ScanMap object
-        scanMap = gson.fromJson(jsonScanMapString, ScanMap.class);
+        if (binaryScan) {
+            // unpack the Base64 line of packed tiles
+            scanMap = ScanMapCodec.decodeFromString(jsonScanMapString);
+        } else {
+            // convert from the json string back to a ScanMap object
+            scanMap = gson.fromJson(jsonScanMapString, ScanMap.class);
+        }
     }
 
 
@@ -0,0 +1,249 @@
+package testUtillities;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+import common.Coord;
+import common.MapTile;
+import common.PlanetMap;
+import enums.RoverDriveType;
+import rover_logic.GridAstar;
+import rover_logic.Node;
+import rover_logic.SearchLogic;
+import supportTools.SwarmMapInit;
+
+/**
+ * Times SearchLogic.Astar against the search it replaced (PriorityQueue of Nodes, HashSet
+ * closed list, HashMap parents), which is copied in below. For every Maps/Map100x60_* map the
+ * whole map is the rover's known map, and the same seeded random start and destination pairs
+ * are planned by both. The new paths are checked to only cross walkable tiles and to be no
+ * longer than the old ones. GridAstar.search is also timed on its own, without building the
+ * grid from the map, and one GridAstar is timed replanning every pair the way ROVER_11 uses
+ * it, along with the bytes each of those replans allocates.
+ *
+ * A plain warmed up timing loop - there is no JMH in libs.
+ *
+ *   java testUtillities.AstarBenchmark [pairs] [rounds]
+ */
+public class AstarBenchmark {
+	private static final RoverDriveType DRIVE = RoverDriveType.WALKER;
+
+	public static void main(String[] args) throws Exception {
+		int pairs = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		String[] mapFiles = { "Maps/Map100x60_2016-04-30_1.txt", "Maps/Map100x60_2016-05-07_1.txt" };
+
+		SearchLogic search = new SearchLogic();
+		for (String mapFile : mapFiles) {
+			SwarmMapInit mapInit = new SwarmMapInit();
+			mapInit.parseInputFromDisplayTextFile(mapFile);
+			PlanetMap planetMap = mapInit.getPlanetMap();
+			int width = planetMap.getWidth();
+			int height = planetMap.getHeight();
+
+			HashMap<Coord, MapTile> globalMap = new HashMap<Coord, MapTile>();
+			boolean[] passable = new boolean[width * height];
+			ArrayList<Coord> walkable = new ArrayList<Coord>();
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					MapTile tile = planetMap.getTile(x, y);
+					Coord loc = new Coord(x, y);
+					if (mapInit.getRoverLocations().containsCoord(loc)) {
+						tile.setHasRoverTrue();
+					}
+					globalMap.put(loc, tile);
+					passable[y * width + x] = search.validateTile(tile, DRIVE);
+					if (passable[y * width + x]) {
+						walkable.add(loc);
+					}
+				}
+			}
+
+			Random rnd = new Random(7);
+			Coord[] from = new Coord[pairs];
+			Coord[] to = new Coord[pairs];
+			for (int p = 0; p < pairs; p++) {
+				from[p] = walkable.get(rnd.nextInt(walkable.size()));
+				to[p] = walkable.get(rnd.nextInt(walkable.size()));
+			}
+
+			// check the paths once
+			int reached = 0;
+			int legacyReached = 0;
+			long steps = 0;
+			long legacySteps = 0;
+			boolean valid = true;
+			boolean noLonger = true;
+			for (int p = 0; p < pairs; p++) {
+				List<String> moves = search.Astar(from[p], to[p], null, DRIVE, globalMap);
+				List<String> legacyMoves = legacyAstar(from[p], to[p], DRIVE, globalMap, search);
+				Coord end = walk(from[p], moves, passable, width, height);
+				Coord legacyEnd = walk(from[p], legacyMoves, null, width, height);
+				valid &= end != null;
+				if (to[p].equals(end)) {
+					reached++;
+					steps += moves.size();
+				}
+				if (to[p].equals(legacyEnd)) {
+					legacyReached++;
+					legacySteps += legacyMoves.size();
+					noLonger &= to[p].equals(end) && moves.size() <= legacyMoves.size();
+				}
+			}
+
+			long legacyNanos = Long.MAX_VALUE;
+			long searchNanos = Long.MAX_VALUE;
+			long gridNanos = Long.MAX_VALUE;
+			long reuseNanos = Long.MAX_VALUE;
+			long reuseBytes = Long.MAX_VALUE;
+			GridAstar planner = new GridAstar();
+			int sink = 0;
+			// the first round is the warm up, the best of the rest is kept
+			for (int round = 0; round <= rounds; round++) {
+				long t0 = System.nanoTime();
+				for (int p = 0; p < pairs; p++) {
+					sink += legacyAstar(from[p], to[p], DRIVE, globalMap, search).size();
+				}
+				long t1 = System.nanoTime();
+				for (int p = 0; p < pairs; p++) {
+					sink += search.Astar(from[p], to[p], null, DRIVE, globalMap).size();
+				}
+				long t2 = System.nanoTime();
+				for (int p = 0; p < pairs; p++) {
+					sink += GridAstar.search(passable, width, height, from[p].ypos * width + from[p].xpos,
+							to[p].ypos * width + to[p].xpos).length;
+				}
+				long t3 = System.nanoTime();
+				long bytes = allocatedBytes();
+				for (int p = 0; p < pairs; p++) {
+					sink += planner.plan(from[p], to[p], DRIVE, globalMap);
+				}
+				long t4 = System.nanoTime();
+				bytes = allocatedBytes() - bytes;
+				if (round > 0) {
+					legacyNanos = Math.min(legacyNanos, (t1 - t0) / pairs);
+					searchNanos = Math.min(searchNanos, (t2 - t1) / pairs);
+					gridNanos = Math.min(gridNanos, (t3 - t2) / pairs);
+					reuseNanos = Math.min(reuseNanos, (t4 - t3) / pairs);
+					reuseBytes = Math.min(reuseBytes, bytes / pairs);
+				}
+			}
+
+			System.out.println(mapFile + " - " + pairs + " paths, " + walkable.size() + " walkable tiles (" + sink + ")");
+			System.out.println("  reached         new " + reached + ", old " + legacyReached);
+			System.out.println("  average steps   new " + String.format("%.1f", (double) steps / Math.max(1, reached))
+					+ ", old " + String.format("%.1f", (double) legacySteps / Math.max(1, legacyReached)));
+			System.out.println("  walkable paths  " + valid);
+			System.out.println("  no longer       " + noLonger);
+			System.out.println("  old Astar       " + String.format("%.1f", legacyNanos / 1e3) + " us/path");
+			System.out.println("  new Astar       " + String.format("%.1f", searchNanos / 1e3) + " us/path (builds the grid from the map)");
+			System.out.println("  GridAstar       " + String.format("%.1f", gridNanos / 1e3) + " us/path");
+			System.out.println("  reused planner  " + String.format("%.1f", reuseNanos / 1e3) + " us/path, "
+					+ (reuseBytes < 0 ? "allocation not measured" : reuseBytes + " bytes allocated/path"));
+		}
+	}
+
+	// bytes this thread has allocated so far, -1 when the JVM can't tell
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	// follows the moves, null if one leaves the map or, with passable given, steps on a blocked tile
+	private static Coord walk(Coord start, List<String> moves, boolean[] passable, int width, int height) {
+		int x = start.xpos;
+		int y = start.ypos;
+		for (String move : moves) {
+			switch (move) {
+			case "N": y--; break;
+			case "S": y++; break;
+			case "E": x++; break;
+			case "W": x--; break;
+			}
+			if (x < 0 || x >= width || y < 0 || y >= height || (passable != null && !passable[y * width + x])) {
+				return null;
+			}
+		}
+		return new Coord(x, y);
+	}
+
+	// SearchLogic.Astar as it was before the grid search
+	private static List<String> legacyAstar(Coord current, Coord dest, RoverDriveType drive, Map<Coord, MapTile> globalMap, SearchLogic search) {
+		PriorityQueue<Node> open = new PriorityQueue<>();
+		Set<Node> closed = new HashSet<>();
+		Map<Node, Double> distanceMemory = new HashMap<>();
+		Map<Node, Node> parentMemory = new LinkedHashMap<>();
+
+		open.add(new Node(current, 0));
+		Node destNode = new Node(dest, 0);
+
+		Node u = null;
+		while (!open.isEmpty()) {
+			u = open.poll();
+			closed.add(u);
+			if (u.getCoord().equals(dest)) {
+				destNode = u;
+				break;
+			}
+			for (Coord c : search.getAdjacentCoordinates(u.getCoord(), null, current)) {
+				if (!closed.contains(new Node(c, 0)) && globalMap.get(c) != null && search.validateTile(globalMap.get(c), drive)) {
+					double g = u.getData() + 1;
+					double h = SearchLogic.getDistance(c, dest);
+					double f = h + g;
+					Node n = new Node(c, f);
+					if (distanceMemory.containsKey(n)) {
+						if (distanceMemory.get(n) > f) {
+							distanceMemory.put(n, f);
+							open.remove(n);
+							open.add(n);
+							parentMemory.put(n, u);
+						}
+					} else {
+						distanceMemory.put(n, f);
+						parentMemory.put(n, u);
+						open.add(n);
+					}
+				}
+			}
+		}
+
+		Node backTrack = destNode;
+		double mindist = Double.MAX_VALUE;
+		for (Node n : parentMemory.keySet()) {
+			if (n.equals(destNode)) {
+				backTrack = destNode;
+				break;
+			}
+			double distance = SearchLogic.getDistance(destNode.getCoord(), n.getCoord());
+			if (distance < mindist) {
+				mindist = distance;
+				backTrack = n;
+			}
+		}
+
+		List<String> moves = new ArrayList<>();
+		while (backTrack != null) {
+			Node parent = parentMemory.get(backTrack);
+			if (parent != null) {
+				if (backTrack.getCoord().xpos == parent.getCoord().xpos) {
+					moves.add(0, parent.getCoord().ypos < backTrack.getCoord().ypos ? "S" : "N");
+				} else {
+					moves.add(0, parent.getCoord().xpos < backTrack.getCoord().xpos ? "E" : "W");
+				}
+			}
+			backTrack = parent;
+		}
+		return moves;
+	}
+}
@@ -0,0 +1,143 @@
+package testUtillities;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import common.Coord;
+import common.RoverLocations;
+import enums.RoverName;
+
+/**
+ * Stress test for concurrent RoverLocations.moveRover calls.
+ * Every RoverName is placed on a small map and driven by several threads at once (as if the
+ * rover had more than one connection), so rovers keep fighting over the same squares.
+ * After every round all movers meet at a barrier and the "no two rovers on one square"
+ * invariant is checked, then the same work is timed again behind one global lock for comparison.
+ *
+ *   java testUtillities.ConcurrentMoveStressTest [threadsPerRover] [rounds] [movesPerRound]
+ */
+public class ConcurrentMoveStressTest {
+	private static final int MAP_WIDTH = 12;
+	private static final int MAP_HEIGHT = 12;
+
+	public static void main(String[] args) throws Exception {
+		int threadsPerRover = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+		int movesPerRound = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+
+		long lockFree = run(threadsPerRover, rounds, movesPerRound, null);
+		long globalLock = run(threadsPerRover, rounds, movesPerRound, new ReentrantLock());
+
+		System.out.println("rovers            " + RoverName.values().length);
+		System.out.println("mover threads     " + RoverName.values().length * threadsPerRover);
+		System.out.println("map               " + MAP_WIDTH + "x" + MAP_HEIGHT);
+		System.out.println("moves attempted   " + (long) RoverName.values().length * threadsPerRover * rounds * movesPerRound);
+		System.out.println("reserve per move  " + lockFree + " ms");
+		System.out.println("global lock       " + globalLock + " ms");
+		System.out.println("invariant held after all " + rounds * 2 + " rounds");
+	}
+
+	private static long run(int threadsPerRover, final int rounds, final int movesPerRound, final ReentrantLock globalLock) throws Exception {
+		final RoverName[] names = RoverName.values();
+		final RoverLocations roverLocations = new RoverLocations();
+		int n = 0;
+		for (RoverName rname : names) {
+			roverLocations.putRover(rname, new Coord(n % MAP_WIDTH, n / MAP_WIDTH));
+			n++;
+		}
+
+		final AtomicLong moved = new AtomicLong();
+		final CyclicBarrier barrier = new CyclicBarrier(names.length * threadsPerRover, new Runnable() {
+			public void run() {
+				checkInvariant(roverLocations, names);
+			}
+		});
+
+		Thread[] movers = new Thread[names.length * threadsPerRover];
+		for (int t = 0; t < movers.length; t++) {
+			final RoverName rname = names[t % names.length];
+			final Random rnd = new Random(t);
+			movers[t] = new Thread(new Runnable() {
+				public void run() {
+					try {
+						for (int r = 0; r < rounds; r++) {
+							for (int m = 0; m < movesPerRound; m++) {
+								Coord next = step(roverLocations.getLocation(rname), rnd);
+								boolean ok;
+								if (globalLock == null) {
+									ok = roverLocations.moveRover(rname, next);
+								} else {
+									globalLock.lock();
+									try {
+										ok = roverLocations.moveRover(rname, next);
+									} finally {
+										globalLock.unlock();
+									}
+								}
+								if (ok) {
+									moved.incrementAndGet();
+								}
+							}
+							barrier.await();
+						}
+					} catch (InterruptedException | BrokenBarrierException e) {
+						throw new RuntimeException(e);
+					}
+				}
+			});
+		}
+
+		long start = System.nanoTime();
+		for (Thread mover : movers) {
+			mover.start();
+		}
+		for (Thread mover : movers) {
+			mover.join();
+		}
+		if (barrier.isBroken()) {
+			throw new IllegalStateException("a round failed the invariant check");
+		}
+		System.out.println((globalLock == null ? "reserve per move " : "global lock      ") + " moves made " + moved.get());
+		return (System.nanoTime() - start) / 1000000;
+	}
+
+	// called with every mover parked at the barrier, so the locations are quiet
+	private static void checkInvariant(RoverLocations roverLocations, RoverName[] names) {
+		HashMap<RoverName, Coord> locations = roverLocations.getHashMapClone();
+		HashSet<Coord> occupied = new HashSet<Coord>();
+		for (RoverName rname : names) {
+			Coord loc = locations.get(rname);
+			if (!occupied.add(loc)) {
+				throw new IllegalStateException("two rovers on " + loc);
+			}
+			if (roverLocations.getName(loc) != rname) {
+				throw new IllegalStateException("occupancy index has " + roverLocations.getName(loc) + " on " + loc + " not " + rname);
+			}
+		}
+		for (int y = 0; y < MAP_HEIGHT; y++) {
+			for (int x = 0; x < MAP_WIDTH; x++) {
+				Coord loc = new Coord(x, y);
+				if (roverLocations.containsCoord(loc) != occupied.contains(loc)) {
+					throw new IllegalStateException("stale occupancy for " + loc);
+				}
+			}
+		}
+	}
+
+	private static Coord step(Coord loc, Random rnd) {
+		int x = loc.xpos;
+		int y = loc.ypos;
+		switch (rnd.nextInt(4)) {
+		case 0: y = Math.max(0, y - 1); break;
+		case 1: y = Math.min(MAP_HEIGHT - 1, y + 1); break;
+		case 2: x = Math.max(0, x - 1); break;
+		default: x = Math.min(MAP_WIDTH - 1, x + 1); break;
+		}
+		return new Coord(x, y);
+	}
+}
@@ -0,0 +1,151 @@
+package testUtillities;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import controlServer.SwarmServer;
+import enums.RoverName;
+import supportTools.SwarmMapInit;
+
+/**
+ * Load benchmark for the SwarmServer connection models.
+ * Starts the server inside this JVM in the requested mode, opens a lot of rover
+ * connections that loop on LOC round trips, then reports throughput, latency and how
+ * many extra threads the server needed to carry the connections. The per core figures come
+ * from what was measured - the threads the server added and the requests it served - so the
+ * three modes can be compared side by side.
+ *
+ * Every rover has its own request limiter in each mission, so the server is started with
+ * enough copies of the mission (-missions=N) for every connection to drive its own rover in
+ * its own mission and never share a token bucket. THROTTLED replies are counted on their own
+ * and left out of the throughput and latency.
+ *
+ * Run one mode per JVM (the server port can only be bound once):
+ *   java testUtillities.ConnectionLoadBenchmark -threads 500 10
+ *   java testUtillities.ConnectionLoadBenchmark -virtualThreads 500 10
+ *   java testUtillities.ConnectionLoadBenchmark -nio 500 10
+ */
+public class ConnectionLoadBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		String mode = args.length > 0 ? args[0] : "-threads";
+		final int connections = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+		final int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+		final int cores = Runtime.getRuntime().availableProcessors();
+
+		// no display needed for a load test
+		System.setProperty("java.awt.headless", "true");
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+		// only rovers that are placed on the default map can answer LOC
+		SwarmMapInit mapInit = new SwarmMapInit();
+		mapInit.parseInputFromDisplayTextFile("MapDefault.txt");
+		final RoverName[] names = mapInit.getRoverLocations().getHashMapClone().keySet().toArray(new RoverName[0]);
+		// the default mission plus enough numbered copies for one rover per connection
+		int missionCopies = (connections - 1) / names.length;
+
+		ArrayList<String> serverArgList = new ArrayList<String>();
+		if (!mode.equals("-threads")) {
+			serverArgList.add(mode);
+		}
+		serverArgList.add("-missions=" + missionCopies);
+		final String[] serverArgs = serverArgList.toArray(new String[0]);
+		Thread server = new Thread(new Runnable() {
+			public void run() {
+				try {
+					SwarmServer.main(serverArgs);
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		});
+		server.setDaemon(true);
+		server.start();
+		Thread.sleep(2000);
+
+		int threadsBefore = threadBean.getThreadCount();
+
+		final AtomicLong requests = new AtomicLong();
+		final AtomicLong throttled = new AtomicLong();
+		final AtomicLong latencyNanos = new AtomicLong();
+		final CountDownLatch connected = new CountDownLatch(connections);
+		final long stopAt = System.currentTimeMillis() + 2000 + seconds * 1000L;
+		final long measureFrom = System.currentTimeMillis() + 2000;
+
+		List<Thread> clients = new ArrayList<Thread>();
+		for (int i = 0; i < connections; i++) {
+			final String rname = names[i % names.length].toString();
+			int mission = i / names.length;
+			final String nameLine = mission == 0 ? rname : rname + " MISSION " + mission;
+			Thread client = new Thread(new Runnable() {
+				public void run() {
+					try (Socket socket = new Socket("localhost", 9537)) {
+						BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+						PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+						in.readLine(); // SUBMITNAME
+						out.println(nameLine);
+						connected.countDown();
+						connected.await();
+						while (System.currentTimeMillis() < stopAt) {
+							long start = System.nanoTime();
+							out.println("LOC");
+							String reply = in.readLine();
+							if (reply == null) {
+								return;
+							}
+							if (reply.equals("THROTTLED")) {
+								// rejected, not a served request
+								if (System.currentTimeMillis() >= measureFrom) {
+									throttled.incrementAndGet();
+								}
+							} else if (System.currentTimeMillis() >= measureFrom) {
+								requests.incrementAndGet();
+								latencyNanos.addAndGet(System.nanoTime() - start);
+							}
+							// stay under the server CALLS_PER_SECOND_LIMIT
+							Thread.sleep(5);
+						}
+					} catch (Exception e) {
+						System.out.println("client " + rname + ": " + e);
+					}
+				}
+			});
+			client.setDaemon(true);
+			clients.add(client);
+			client.start();
+		}
+
+		connected.await();
+		Thread.sleep(1000);
+		int serverThreads = threadBean.getThreadCount() - threadsBefore - connections;
+		for (Thread client : clients) {
+			client.join();
+		}
+
+		long total = requests.get();
+		long perSecond = total / seconds;
+		System.out.println("");
+		System.out.println("mode                 " + mode);
+		System.out.println("connections          " + connections + " (" + (missionCopies + 1) + " missions)");
+		System.out.println("cores                " + cores);
+		System.out.println("platform threads     " + serverThreads + " added by the server");
+		if (mode.equals("-virtualThreads") && Runtime.version().feature() < 21) {
+			System.out.println("                     (no virtual threads before Java 21, the server used a cached thread pool)");
+		}
+		System.out.println("threads per core     " + String.format("%.1f", (double) serverThreads / cores));
+		System.out.println("connections/thread   " + String.format("%.1f", (double) connections / Math.max(1, serverThreads)));
+		System.out.println("requests/second      " + perSecond);
+		System.out.println("requests/second/core " + (perSecond / cores));
+		System.out.println("throttled/second     " + (throttled.get() / seconds) + " (not counted above)");
+		System.out.println("mean latency (ms)    " + (total == 0 ? 0 : (latencyNanos.get() / total) / 1000000.0));
+		System.exit(0);
+	}
+}
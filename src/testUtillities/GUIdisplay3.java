@@ -97,16 +97,16 @@ class MyGUIWorker3 extends SwingWorker<Void, String> {
 					roverPrint.append("|" + rNum.substring(6));
 				
 				// then check if there is a terrain feature (if not SOIL then display terrain)
-				} else if(planetMap.getTile(tcor).getTerrain() != Terrain.SOIL){
+				} else if(planetMap.terrainAt(tcor) != Terrain.SOIL){
 					roverPrint.append("|");
-					roverPrint.append(planetMap.getTile(tcor).getTerrain().getTerString());
+					roverPrint.append(planetMap.terrainAt(tcor).getTerString());
 					if(sciloc.checkLocation(tcor)) {
 						roverPrint.append(sciloc.scanLocation(tcor).getSciString());
 					} else {
 						roverPrint.append("_");
 					}
 				
-				} else if(planetMap.getTile(tcor).getTerrain() == Terrain.SOIL){
+				} else if(planetMap.terrainAt(tcor) == Terrain.SOIL){
 					roverPrint.append("|_");
 					if(sciloc.checkLocation(tcor)) {
 						roverPrint.append(sciloc.scanLocation(tcor).getSciString());
@@ -0,0 +1,212 @@
+package testUtillities;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Random;
+
+import common.Coord;
+import common.MapTile;
+import common.PlanetMap;
+import common.RoverLocations;
+import common.ScienceLocations;
+import enums.RoverName;
+import enums.Science;
+import supportTools.SwarmMapInit;
+
+/**
+ * Times SwarmMapInit.parseInputFromDisplayTextFile against the old line by line parser
+ * (BufferedReader, a substring and an isInteger exception check per cell, a MapTile per tile),
+ * which is copied in below. Both parsers load every map in Maps/ named Map100x60_* and a
+ * random 2000x2000 map written to a temp file, and must end up with the same terrain, science
+ * and rover locations.
+ *
+ *   java testUtillities.MapParserBenchmark [rounds]
+ */
+public class MapParserBenchmark {
+	private static final int BIG_EDGE = 2000;
+
+	public static void main(String[] args) throws Exception {
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+
+		ArrayList<String> mapFiles = new ArrayList<String>();
+		File[] maps = new File("Maps").listFiles();
+		if (maps != null) {
+			for (File map : maps) {
+				if (map.getName().startsWith("Map100x60_")) {
+					mapFiles.add(map.getPath());
+				}
+			}
+		}
+		File big = File.createTempFile("Map" + BIG_EDGE + "x" + BIG_EDGE + "_", ".txt");
+		big.deleteOnExit();
+		writeRandomMap(big, BIG_EDGE, BIG_EDGE, new Random(42));
+		mapFiles.add(big.getPath());
+
+		for (String mapFile : mapFiles) {
+			// the big map gets fewer rounds, it is 660 times the size of a 100x60 one
+			int mapRounds = mapFile.equals(big.getPath()) ? Math.max(1, rounds / 10) : rounds * 10;
+
+			Loaded legacy = parseLegacy(mapFile);
+			SwarmMapInit current = new SwarmMapInit();
+			quietly(current, mapFile);
+			System.out.println(mapFile + " (" + new File(mapFile).length() / 1024 + " KB)");
+			System.out.println("  same result     " + sameMap(legacy, current));
+
+			// warm up both before timing
+			for (int i = 0; i < mapRounds; i++) {
+				parseLegacy(mapFile);
+				quietly(new SwarmMapInit(), mapFile);
+			}
+
+			long t0 = System.nanoTime();
+			for (int i = 0; i < mapRounds; i++) {
+				parseLegacy(mapFile);
+			}
+			long legacyNanos = (System.nanoTime() - t0) / mapRounds;
+
+			t0 = System.nanoTime();
+			for (int i = 0; i < mapRounds; i++) {
+				quietly(new SwarmMapInit(), mapFile);
+			}
+			long currentNanos = (System.nanoTime() - t0) / mapRounds;
+
+			System.out.println("  line parser     " + String.format("%.2f", legacyNanos / 1e6) + " ms");
+			System.out.println("  buffer parser   " + String.format("%.2f", currentNanos / 1e6) + " ms");
+			System.out.println("  faster by       " + String.format("%.1fx", (double) legacyNanos / currentNanos));
+		}
+	}
+
+	// the parser prints the map name on every load
+	private static void quietly(SwarmMapInit mapInit, String mapFile) throws IOException {
+		PrintStream out = System.out;
+		System.setOut(new PrintStream(new OutputStream() {
+			public void write(int b) {
+			}
+		}));
+		try {
+			mapInit.parseInputFromDisplayTextFile(mapFile);
+		} finally {
+			System.setOut(out);
+		}
+	}
+
+	private static boolean sameMap(Loaded legacy, SwarmMapInit current) {
+		PlanetMap planetMap = current.getPlanetMap();
+		if (planetMap.getWidth() != legacy.planetMap.getWidth() || planetMap.getHeight() != legacy.planetMap.getHeight()
+				|| !planetMap.getStartPosition().equals(legacy.planetMap.getStartPosition())
+				|| !planetMap.getTargetPosition().equals(legacy.planetMap.getTargetPosition())) {
+			return false;
+		}
+		for (int y = 0; y < planetMap.getHeight(); y++) {
+			for (int x = 0; x < planetMap.getWidth(); x++) {
+				if (planetMap.terrainAt(x, y) != legacy.planetMap.terrainAt(x, y)) {
+					return false;
+				}
+			}
+		}
+		return current.getScienceLocations().getHashMapClone().equals(legacy.scienceLocations.getHashMapClone())
+				&& current.getRoverLocations().getHashMapClone().equals(legacy.roverLocations.getHashMapClone());
+	}
+
+	// random terrain and science, with every rover somewhere on the map
+	private static void writeRandomMap(File file, int width, int height, Random rnd) throws IOException {
+		String terrain = "RGSX__";
+		String science = "YOMAC_________";
+		RoverName[] names = RoverName.values();
+		int[] roverCell = new int[names.length];
+		for (int r = 1; r < names.length; r++) {
+			roverCell[r] = rnd.nextInt(width * height);
+		}
+
+		PrintWriter out = new PrintWriter(new FileWriter(file));
+		try {
+			out.println("Random benchmark map");
+			out.println(width + " " + height + " Map_Width_Height");
+			out.println("1 1 StartPosition(x,y)");
+			out.println((width - 2) + " " + (height - 2) + " TargetPosition(x,y)");
+			out.println("KEY: random map");
+			out.println("column numbers");
+			out.println("top underline");
+			StringBuilder roverLine = new StringBuilder();
+			StringBuilder terrainLine = new StringBuilder();
+			for (int y = 0; y < height; y++) {
+				roverLine.setLength(0);
+				terrainLine.setLength(0);
+				for (int x = 0; x < width; x++) {
+					String rover = "  ";
+					for (int r = 1; r < names.length; r++) {
+						if (roverCell[r] == y * width + x) {
+							rover = names[r].toString().substring(6);
+						}
+					}
+					roverLine.append('|').append(rover);
+					terrainLine.append('|').append(terrain.charAt(rnd.nextInt(terrain.length())))
+							.append(science.charAt(rnd.nextInt(science.length())));
+				}
+				out.println(roverLine.append("| ").append(y));
+				out.println(terrainLine.append('|'));
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	private static class Loaded {
+		PlanetMap planetMap;
+		RoverLocations roverLocations = new RoverLocations();
+		ScienceLocations scienceLocations = new ScienceLocations();
+	}
+
+	// the parser as it was before it read the file into a CharBuffer
+	private static Loaded parseLegacy(String fileName) throws IOException {
+		Loaded loaded = new Loaded();
+		BufferedReader bufRead = new BufferedReader(new FileReader(fileName));
+		try {
+			bufRead.readLine();
+			Coord mapSize = SwarmMapInit.extractCoord(bufRead.readLine());
+			int mapWidth = mapSize.xpos;
+			Coord startPos = SwarmMapInit.extractCoord(bufRead.readLine());
+			Coord targetPos = SwarmMapInit.extractCoord(bufRead.readLine());
+			bufRead.readLine();
+			bufRead.readLine();
+			bufRead.readLine();
+			loaded.planetMap = new PlanetMap(mapWidth, mapSize.ypos, startPos, targetPos);
+
+			double yCount = 0.0;
+			String myLine;
+			while ((myLine = bufRead.readLine()) != null) {
+				int yPos = (int) yCount;
+				for (int i = 0; i < mapWidth; i++) {
+					String tstr = myLine.substring(i * 3 + 1, i * 3 + 3);
+					if (SwarmMapInit.isInteger(tstr)) {
+						loaded.roverLocations.putRover(RoverName.getEnum("ROVER_" + tstr), new Coord(i, yPos));
+					} else if (tstr.startsWith("__") || tstr.startsWith("  ")) {
+						// do nothing
+					} else {
+						String posOne = tstr.substring(0, 1);
+						if (!posOne.equals("_")) {
+							loaded.planetMap.setTile(new MapTile(posOne), i, yPos);
+						} else {
+							loaded.planetMap.setTile(new MapTile("N"), i, yPos);
+						}
+						String posTwo = tstr.substring(1, 2);
+						if (!posTwo.equals("_")) {
+							loaded.scienceLocations.putScience(new Coord(i, yPos), Science.getEnum(posTwo));
+						}
+					}
+				}
+				yCount += 0.5;
+			}
+		} finally {
+			bufRead.close();
+		}
+		return loaded;
+	}
+}
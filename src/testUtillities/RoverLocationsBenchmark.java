@@ -0,0 +1,132 @@
+package testUtillities;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import common.Coord;
+import common.RoverLocations;
+import enums.RoverName;
+
+/**
+ * Compares RoverLocations occupancy lookups against the old HashMap.containsValue scan.
+ * Every RoverName is placed at random on a 100x60 map, then each round
+ *  - checks every tile of the map (what the GUI refresh does)
+ *  - checks an 11x11 scan window around every rover (what SCAN does)
+ *  - moves every rover one random step
+ *
+ *   java testUtillities.RoverLocationsBenchmark [rounds]
+ */
+public class RoverLocationsBenchmark {
+	private static final int MAP_WIDTH = 100;
+	private static final int MAP_HEIGHT = 60;
+	private static final int SCAN_EDGE = 11;
+
+	public static void main(String[] args) {
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		RoverName[] names = RoverName.values();
+
+		Random rnd = new Random(42);
+		HashMap<RoverName, Coord> start = new HashMap<RoverName, Coord>();
+		HashMap<Coord, RoverName> taken = new HashMap<Coord, RoverName>();
+		for (RoverName rname : names) {
+			Coord loc;
+			do {
+				loc = new Coord(rnd.nextInt(MAP_WIDTH), rnd.nextInt(MAP_HEIGHT));
+			} while (taken.containsKey(loc));
+			taken.put(loc, rname);
+			start.put(rname, loc);
+		}
+
+		// warm up both paths before timing
+		runLinear(start, names, 20);
+		runIndexed(start, names, 20);
+
+		long t0 = System.nanoTime();
+		long linearHits = runLinear(start, names, rounds);
+		long linearNanos = System.nanoTime() - t0;
+
+		t0 = System.nanoTime();
+		long indexedHits = runIndexed(start, names, rounds);
+		long indexedNanos = System.nanoTime() - t0;
+
+		System.out.println("rovers              " + names.length);
+		System.out.println("map                 " + MAP_WIDTH + "x" + MAP_HEIGHT);
+		System.out.println("rounds              " + rounds);
+		System.out.println("containsValue scan  " + (linearNanos / 1000000) + " ms  (" + linearHits + " hits)");
+		System.out.println("RoverLocations      " + (indexedNanos / 1000000) + " ms  (" + indexedHits + " hits)");
+		System.out.println("speedup             " + String.format("%.1fx", (double) linearNanos / indexedNanos));
+	}
+
+	private static long runLinear(HashMap<RoverName, Coord> start, RoverName[] names, int rounds) {
+		HashMap<RoverName, Coord> roverHash = new HashMap<RoverName, Coord>(start);
+		Random rnd = new Random(7);
+		long hits = 0;
+		for (int r = 0; r < rounds; r++) {
+			for (int y = 0; y < MAP_HEIGHT; y++) {
+				for (int x = 0; x < MAP_WIDTH; x++) {
+					if (roverHash.containsValue(new Coord(x, y))) {
+						hits++;
+					}
+				}
+			}
+			for (RoverName rname : names) {
+				Coord loc = roverHash.get(rname);
+				for (int j = -SCAN_EDGE / 2; j <= SCAN_EDGE / 2; j++) {
+					for (int i = -SCAN_EDGE / 2; i <= SCAN_EDGE / 2; i++) {
+						if (roverHash.containsValue(new Coord(loc.xpos + i, loc.ypos + j))) {
+							hits++;
+						}
+					}
+				}
+			}
+			for (RoverName rname : names) {
+				Coord next = step(roverHash.get(rname), rnd);
+				if (!roverHash.containsValue(next)) {
+					roverHash.put(rname, next);
+				}
+			}
+		}
+		return hits;
+	}
+
+	private static long runIndexed(HashMap<RoverName, Coord> start, RoverName[] names, int rounds) {
+		RoverLocations roverLocations = new RoverLocations(start);
+		Random rnd = new Random(7);
+		long hits = 0;
+		for (int r = 0; r < rounds; r++) {
+			for (int y = 0; y < MAP_HEIGHT; y++) {
+				for (int x = 0; x < MAP_WIDTH; x++) {
+					if (roverLocations.containsCoord(new Coord(x, y))) {
+						hits++;
+					}
+				}
+			}
+			for (RoverName rname : names) {
+				Coord loc = roverLocations.getLocation(rname);
+				for (int j = -SCAN_EDGE / 2; j <= SCAN_EDGE / 2; j++) {
+					for (int i = -SCAN_EDGE / 2; i <= SCAN_EDGE / 2; i++) {
+						if (roverLocations.containsCoord(new Coord(loc.xpos + i, loc.ypos + j))) {
+							hits++;
+						}
+					}
+				}
+			}
+			for (RoverName rname : names) {
+				roverLocations.moveRover(rname, step(roverLocations.getLocation(rname), rnd));
+			}
+		}
+		return hits;
+	}
+
+	private static Coord step(Coord loc, Random rnd) {
+		int x = loc.xpos;
+		int y = loc.ypos;
+		switch (rnd.nextInt(4)) {
+		case 0: y = Math.max(0, y - 1); break;
+		case 1: y = Math.min(MAP_HEIGHT - 1, y + 1); break;
+		case 2: x = Math.max(0, x - 1); break;
+		default: x = Math.min(MAP_WIDTH - 1, x + 1); break;
+		}
+		return new Coord(x, y);
+	}
+}
@@ -0,0 +1,89 @@
+package testUtillities;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Random;
+
+import common.Coord;
+import common.Rover;
+import controlServer.SimulationCore;
+import enums.RoverName;
+import enums.Science;
+import supportTools.SwarmMapInit;
+
+/**
+ * Plays a whole mission on the SimulationCore without a server or sockets.
+ * Every rover on the map runs a seeded random walk and tries to GATHER on every tick.
+ * The mission is played twice from a fresh load of the map, both runs must end with the
+ * same rover locations and scores, and the time the mission took is compared to the
+ * real time it would have taken.
+ *
+ *   java testUtillities.SimulationRun [mapFile] [seed]
+ */
+public class SimulationRun {
+
+	public static void main(String[] args) throws Exception {
+		String mapFile = args.length > 0 ? args[0] : "Maps/Map100x60_2016-04-30_1.txt";
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+
+		long t0 = System.nanoTime();
+		String first = playMission(mapFile, seed);
+		long firstNanos = System.nanoTime() - t0;
+		String second = playMission(mapFile, seed);
+
+		long missionMillis = SimulationCore.MISSION_TICKS * SimulationCore.TICK_MILLIS;
+		System.out.println("map             " + mapFile);
+		System.out.println("ticks           " + SimulationCore.MISSION_TICKS + " x " + SimulationCore.TICK_MILLIS + " ms");
+		System.out.println("result          " + first);
+		System.out.println("run time        " + (firstNanos / 1000000) + " ms for " + (missionMillis / 1000) + " s of mission");
+		System.out.println("faster by       " + String.format("%.0fx", missionMillis * 1000000.0 / firstNanos));
+		System.out.println("deterministic   " + first.equals(second));
+		if (!first.equals(second)) {
+			System.out.println("second run      " + second);
+		}
+	}
+
+	// returns the final scores and rover locations
+	private static String playMission(String mapFile, long seed) throws Exception {
+		SwarmMapInit mapInit = new SwarmMapInit();
+		mapInit.parseInputFromDisplayTextFile(mapFile);
+
+		ArrayList<ArrayList<Science>> corpCollectedScience = new ArrayList<ArrayList<Science>>();
+		for (int corp = 0; corp < 3; corp++) {
+			corpCollectedScience.add(new ArrayList<Science>());
+		}
+		SimulationCore simulation = new SimulationCore(mapInit.getPlanetMap(), mapInit.getRoverLocations(),
+				mapInit.getScienceLocations(), corpCollectedScience, null);
+
+		// EnumMap so the rovers always submit in the same order
+		EnumMap<RoverName, Rover> rovers = new EnumMap<RoverName, Rover>(RoverName.class);
+		for (RoverName rname : mapInit.getRoverLocations().getHashMapClone().keySet()) {
+			rovers.put(rname, new Rover(rname));
+		}
+
+		String[] cardinals = { "N", "E", "S", "W" };
+		Random rnd = new Random(seed);
+		int[] heading = new int[RoverName.values().length];
+		for (long tick = 0; tick < SimulationCore.MISSION_TICKS; tick++) {
+			for (Rover rover : rovers.values()) {
+				int r = rover.getRoverName().ordinal();
+				if (rnd.nextInt(20) == 0) {
+					heading[r] = rnd.nextInt(cardinals.length);
+				}
+				simulation.submitMove(rover, cardinals[heading[r]]);
+				simulation.submitGather(rover);
+			}
+			simulation.advance();
+		}
+
+		StringBuilder result = new StringBuilder();
+		result.append("BLUE ").append(corpCollectedScience.get(1).size());
+		result.append(" GREEN ").append(corpCollectedScience.get(2).size());
+		result.append(" SAMPLE ").append(corpCollectedScience.get(0).size());
+		for (RoverName rname : rovers.keySet()) {
+			Coord loc = mapInit.getRoverLocations().getLocation(rname);
+			result.append(", ").append(rname).append(" ").append(loc.xpos).append(",").append(loc.ypos);
+		}
+		return result.toString();
+	}
+}